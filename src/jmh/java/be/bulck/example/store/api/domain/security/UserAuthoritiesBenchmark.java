@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2017 The Store API Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package be.bulck.example.store.api.domain.security;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The benchmark of user's authorities flattening (roles and their permissions).
+ *
+ * Run with the GC profiler to compare allocations per call (gc.alloc.rate.norm) between authorities reused and
+ * authorities recomputed after a change of roles (as it was done on every call before being cached).
+ *
+ * @author Fabien Vanden Bulck
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class UserAuthoritiesBenchmark {
+  @Param({"1", "5"})
+  private int roleCount;
+
+  @Param({"2", "20"})
+  private int permissionCountPerRole;
+
+  private User user;
+
+  @Setup
+  public void setUp() {
+    user = new User();
+    user.setId(1L);
+    user.setUsername("jdoe");
+
+    long permissionId = 1;
+    for (long roleId = 1; roleId <= roleCount; roleId++) {
+      Role role = new Role();
+      role.setId(roleId);
+      role.setName("USER_" + roleId);
+      role.setLabel("Role #" + roleId);
+
+      for (int i = 0; i < permissionCountPerRole; i++, permissionId++) {
+        Permission permission = new Permission();
+        permission.setId(permissionId);
+        permission.setName("PERMISSION_" + permissionId);
+        permission.setLabel("Permission #" + permissionId);
+        role.addPermission(permission);
+      }
+
+      user.addRole(role);
+    }
+  }
+
+  @Benchmark
+  public Collection<? extends GrantedAuthority> getAuthorities() {
+    return user.getAuthorities();
+  }
+
+  @Benchmark
+  public Collection<? extends GrantedAuthority> getAuthoritiesAfterRolesChange() {
+    user.setRoles(user.getRoles());
+
+    return user.getAuthorities();
+  }
+}
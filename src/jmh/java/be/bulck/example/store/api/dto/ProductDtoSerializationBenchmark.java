@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2017 The Store API Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package be.bulck.example.store.api.dto;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The benchmark of JSON and XML serialization of product DTO collections (as done for GET /products).
+ *
+ * @author Fabien Vanden Bulck
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class ProductDtoSerializationBenchmark {
+  @Param({"1", "100", "1000"})
+  private int size;
+
+  private ObjectMapper jsonMapper;
+
+  private ObjectMapper xmlMapper;
+
+  private List<ProductDto> productDtos;
+
+  @Setup
+  public void setUp() {
+    jsonMapper = Jackson2ObjectMapperBuilder.json().build();
+    xmlMapper = Jackson2ObjectMapperBuilder.xml().build();
+    productDtos = new ArrayList<>(size);
+
+    for (long i = 1; i <= size; i++) {
+      ProductDto productDto = new ProductDto();
+      productDto.setId(i);
+      productDto.setName("Product #" + i);
+      productDto.setPrice(new BigDecimal("9.99"));
+      productDto.setDescription("Description of product #" + i);
+      productDtos.add(productDto);
+    }
+  }
+
+  @Benchmark
+  public byte[] json() throws JsonProcessingException {
+    return jsonMapper.writeValueAsBytes(productDtos);
+  }
+
+  @Benchmark
+  public byte[] xml() throws JsonProcessingException {
+    return xmlMapper.writeValueAsBytes(productDtos);
+  }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2017 The Store API Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package be.bulck.example.store.api.exception;
+
+import be.bulck.example.store.api.domain.Product;
+import be.bulck.example.store.api.repository.ProductRepository;
+import be.bulck.example.store.api.service.impl.ProductServiceImpl;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The benchmark of the not found error path (miss-heavy workload): {@link ProductServiceImpl#find(Long)} is called on
+ * a missing id below a call stack as deep as the filter and handler stack, and the {@link ResourceNotFoundException} it
+ * throws is translated by {@link ResourceExceptionHandler}. The stackless exception is compared with an exception
+ * filling its stack trace at the same depth, as before.
+ *
+ * The repository is a stub returning no product, so neither the database, the cache nor the Spring MVC dispatch and
+ * JSON serialization are measured: the benchmark isolates the cost of the exception against the service and handler
+ * work. Recorded on a 1 vCPU Linux VM (Intel Xeon, JDK 1.8.0_392) with 1 fork, 3 warmup and 5 measurement iterations
+ * of 1 second:
+ * <pre>
+ * Benchmark           (depth)   Mode  Cnt       Score        Error  Units
+ * stackTraceNotFound       20  thrpt    5  214975.068 +- 106337.376  ops/s
+ * stackTraceNotFound      150  thrpt    5   68354.340 +-  11087.622  ops/s
+ * stacklessNotFound        20  thrpt    5  625801.222 +- 337423.525  ops/s
+ * stacklessNotFound       150  thrpt    5  110125.722 +-  34738.774  ops/s
+ * </pre>
+ *
+ * @author Fabien Vanden Bulck
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class ResourceNotFoundBenchmark {
+  /** The depth of call stack when the service is called. */
+  @Param({"20", "150"})
+  private int depth;
+
+  private ProductServiceImpl productService;
+
+  private ResourceExceptionHandler resourceExceptionHandler;
+
+  private long id;
+
+  @Setup
+  public void setUp() {
+    ProductRepository productRepository = (ProductRepository) Proxy.newProxyInstance(
+        ProductRepository.class.getClassLoader(), new Class<?>[] {ProductRepository.class}, (proxy, method, args) -> null);
+    productService = new ProductServiceImpl();
+    setField(productService, "productRepository", productRepository);
+
+    ClientErrorLogger clientErrorLogger = new ClientErrorLogger();
+    setField(clientErrorLogger, "sampleInterval", 10L);
+    clientErrorLogger.init();
+    resourceExceptionHandler = new ResourceExceptionHandler();
+    setField(resourceExceptionHandler, "clientErrorLogger", clientErrorLogger);
+  }
+
+  @Benchmark
+  public ResponseEntity<ResourceExceptionResponse> stacklessNotFound() {
+    try {
+      call(depth, true);
+      throw new IllegalStateException("Product should not be found");
+    } catch (ResourceNotFoundException exception) {
+      return resourceExceptionHandler.resourceNotFound(exception);
+    }
+  }
+
+  @Benchmark
+  public ResponseEntity<ResourceExceptionResponse> stackTraceNotFound() {
+    try {
+      call(depth, false);
+      throw new IllegalStateException("Product should not be found");
+    } catch (StackTraceNotFoundException exception) {
+      return resourceExceptionHandler.resourceNotFound(new ResourceNotFoundException(exception.getMessage()));
+    }
+  }
+
+  private Product call(int remainingDepth, boolean stackless) {
+    if (remainingDepth > 0) {
+      return call(remainingDepth - 1, stackless);
+    }
+
+    try {
+      return productService.find(++id);
+    } catch (ResourceNotFoundException exception) {
+      if (stackless) {
+        throw exception;
+      }
+
+      throw new StackTraceNotFoundException(exception.getMessage());
+    }
+  }
+
+  private static void setField(Object target, String name, Object value) {
+    Field field = ReflectionUtils.findField(target.getClass(), name);
+    ReflectionUtils.makeAccessible(field);
+    ReflectionUtils.setField(field, target, value);
+  }
+
+  /**
+   * A not found exception filling its stack trace, as resource exceptions did before.
+   */
+  private static final class StackTraceNotFoundException extends RuntimeException {
+    private StackTraceNotFoundException(String message) {
+      super(message);
+    }
+  }
+}
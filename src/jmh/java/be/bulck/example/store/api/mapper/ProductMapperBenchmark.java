@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2017 The Store API Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package be.bulck.example.store.api.mapper;
+
+import be.bulck.example.store.api.domain.Product;
+import be.bulck.example.store.api.dto.ProductCreationDto;
+import be.bulck.example.store.api.dto.ProductDto;
+import org.modelmapper.ModelMapper;
+import org.modelmapper.TypeToken;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The benchmark of product mapping, comparing the hand-written mapper with the reflective ModelMapper used before.
+ *
+ * @author Fabien Vanden Bulck
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class ProductMapperBenchmark {
+  /** The type of product DTO collections (for ModelMapper). */
+  private static final Type PRODUCT_DTO_LIST_TYPE = new TypeToken<Collection<ProductDto>>() {}.getType();
+
+  @Param({"1", "100"})
+  private int size;
+
+  private ProductMapper productMapper;
+
+  private ModelMapper modelMapper;
+
+  private List<Product> products;
+
+  private ProductCreationDto productCreationDto;
+
+  @Setup
+  public void setUp() {
+    productMapper = new ProductMapper();
+    modelMapper = new ModelMapper();
+    products = new ArrayList<>(size);
+
+    for (long i = 1; i <= size; i++) {
+      Product product = new Product();
+      product.setId(i);
+      product.setName("Product #" + i);
+      product.setPrice(new BigDecimal("9.99"));
+      product.setDescription("Description of product #" + i);
+      products.add(product);
+    }
+
+    productCreationDto = new ProductCreationDto();
+    productCreationDto.setName("Poutine");
+    productCreationDto.setPrice(new BigDecimal("7.43"));
+    productCreationDto.setDescription("Made in Quebec (Canada)");
+  }
+
+  @Benchmark
+  public Collection<ProductDto> productMapperToDtos() {
+    return productMapper.toDtos(products);
+  }
+
+  @Benchmark
+  public Collection<ProductDto> modelMapperToDtos() {
+    return modelMapper.map(products, PRODUCT_DTO_LIST_TYPE);
+  }
+
+  @Benchmark
+  public Product productMapperToEntity() {
+    return productMapper.toEntity(productCreationDto);
+  }
+
+  @Benchmark
+  public Product modelMapperToEntity() {
+    return modelMapper.map(productCreationDto, Product.class);
+  }
+}
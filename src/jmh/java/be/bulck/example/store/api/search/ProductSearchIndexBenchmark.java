@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2017 The Store API Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package be.bulck.example.store.api.search;
+
+import be.bulck.example.store.api.domain.Product;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The benchmark of product search index, measuring the latency of queries on a generated catalogue.
+ *
+ * @author Fabien Vanden Bulck
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class ProductSearchIndexBenchmark {
+  /** The number of distinct words used to generate names and descriptions. */
+  private static final int VOCABULARY_SIZE = 50000;
+
+  @Param({"100000", "1000000"})
+  private int size;
+
+  private ProductSearchIndex productSearchIndex;
+
+  private String[] vocabulary;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(42);
+    productSearchIndex = new ProductSearchIndex();
+    vocabulary = new String[VOCABULARY_SIZE];
+
+    for (int i = 0; i < VOCABULARY_SIZE; i++) {
+      vocabulary[i] = Integer.toString(i * 7919 + 1000, Character.MAX_RADIX);
+    }
+
+    // The catalogue is loaded as on startup
+    productSearchIndex.startLoading();
+    for (long i = 1; i <= size; i++) {
+      Product product = new Product();
+      product.setId(i);
+      product.setVersion(0L);
+      product.setName(randomWords(random, 3));
+      product.setDescription(randomWords(random, 20));
+      productSearchIndex.load(product);
+    }
+    productSearchIndex.finishLoading();
+  }
+
+  @Benchmark
+  public List<Long> searchOneTerm() {
+    return productSearchIndex.search(vocabulary[1234], 50);
+  }
+
+  @Benchmark
+  public List<Long> searchTwoTerms() {
+    return productSearchIndex.search(vocabulary[1234] + " " + vocabulary[42], 50);
+  }
+
+  @Benchmark
+  public List<Long> searchPrefix() {
+    return productSearchIndex.search(vocabulary[1234].substring(0, 3), 50);
+  }
+
+  // Words follow a skewed distribution, as in natural texts
+  private String randomWords(Random random, int count) {
+    StringBuilder words = new StringBuilder();
+
+    for (int i = 0; i < count; i++) {
+      double skewed = Math.pow(random.nextDouble(), 3);
+      words.append(vocabulary[(int) (skewed * VOCABULARY_SIZE)]).append(' ');
+    }
+
+    return words.toString();
+  }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2017 The Store API Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package be.bulck.example.store.api.security.oauth2.jwt;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.oauth2.common.DefaultOAuth2AccessToken;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.OAuth2Request;
+import org.springframework.security.oauth2.provider.token.store.JwtAccessTokenConverter;
+import org.springframework.security.oauth2.provider.token.store.JwtTokenStore;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The benchmark of JWT access token encoding (token endpoint) and decoding (resource server).
+ *
+ * @author Fabien Vanden Bulck
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class JwtAccessTokenConverterBenchmark {
+  /** The HMAC key used to sign tokens. */
+  private static final String HMAC_KEY = "7w!z%C*F-JaNdRgUkXp2s5u8x/A?D(G+";
+
+  private JwtAccessTokenConverter converter;
+
+  private JwtTokenStore tokenStore;
+
+  private OAuth2Authentication authentication;
+
+  private String encodedToken;
+
+  @Setup
+  public void setUp() throws Exception {
+    converter = new JwtAccessTokenConverter();
+    converter.setSigningKey(HMAC_KEY);
+    converter.afterPropertiesSet();
+    tokenStore = new JwtTokenStore(converter);
+
+    List<GrantedAuthority> authorities =
+        AuthorityUtils.createAuthorityList("ROLE_USER", "PERM_READ_PRODUCT", "PERM_WRITE_PRODUCT");
+    OAuth2Request request = new OAuth2Request(Collections.emptyMap(), "webapp", authorities, true,
+        new HashSet<>(Arrays.asList("read", "write")), Collections.singleton("store-api"), null, null, null);
+    authentication = new OAuth2Authentication(request,
+        new UsernamePasswordAuthenticationToken("jdoe", "N/A", authorities));
+
+    encodedToken = encode().getValue();
+  }
+
+  @Benchmark
+  public OAuth2AccessToken encode() {
+    DefaultOAuth2AccessToken accessToken = new DefaultOAuth2AccessToken("token");
+    accessToken.setExpiration(new Date(System.currentTimeMillis() + 3600000L));
+
+    return converter.enhance(accessToken, authentication);
+  }
+
+  @Benchmark
+  public OAuth2Authentication decode() {
+    return tokenStore.readAuthentication(encodedToken);
+  }
+}
@@ -17,10 +17,8 @@
 
 package be.bulck.example.store.api;
 
-import org.modelmapper.ModelMapper;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.context.annotation.Bean;
 
 /**
  * The entry point to access to Store API.
@@ -32,9 +30,4 @@ public class StoreApiApplication {
   public static void main(String[] args) {
     SpringApplication.run(StoreApiApplication.class, args);
   }
-
-  @Bean
-  public ModelMapper modelMapper() {
-    return new ModelMapper();
-  }
 }
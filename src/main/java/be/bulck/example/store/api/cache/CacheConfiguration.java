@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2017 The Store API Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package be.bulck.example.store.api.cache;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CachingConfigurerSupport;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.security.core.userdetails.cache.SpringCacheBasedUserCache;
+
+/**
+ * The cache configuration.
+ *
+ * The cache provider (Caffeine by default), the size and the expiration of caches are configured through the
+ * "spring.cache" properties.
+ *
+ * The puts and evictions of cache annotations are transaction-aware: they are applied once the transaction is
+ * committed, and dropped if it is rolled back. The caching and the transaction interceptors have the same (lowest)
+ * precedence, so a product put in cache by a transactional method could otherwise be cached before the transaction is
+ * committed, or even if it is rolled back.
+ *
+ * @author Fabien Vanden Bulck
+ */
+@Configuration
+@EnableCaching
+public class CacheConfiguration extends CachingConfigurerSupport {
+  /** The name of cache containing products by identifier. */
+  public static final String PRODUCTS_CACHE = "products";
+
+  /** The name of cache containing products by name. */
+  public static final String PRODUCTS_BY_NAME_CACHE = "productsByName";
+
+  /** The name of cache containing users (with their roles and permissions) by username. */
+  public static final String USERS_CACHE = "users";
+
+  @Autowired
+  private CacheManager cacheManager;
+
+  @Override
+  public CacheManager cacheManager() {
+    return new TransactionAwareCacheManagerProxy(cacheManager);
+  }
+
+  @Bean
+  public UserCache userCache(CacheManager cacheManager) throws Exception {
+    return new SpringCacheBasedUserCache(cacheManager.getCache(USERS_CACHE));
+  }
+}
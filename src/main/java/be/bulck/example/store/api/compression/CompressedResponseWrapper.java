@@ -0,0 +1,411 @@
+/*
+ * Copyright (C) 2017 The Store API Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package be.bulck.example.store.api.compression;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.Locale;
+import java.util.Set;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The response wrapper compressing the body of response once it reaches a minimum size.
+ *
+ * Writes are blocking: asynchronous requests are supported, but not non-blocking I/O (a write listener), as the
+ * compressed stream can not tell whether a write would block.
+ *
+ * @author Fabien Vanden Bulck
+ */
+class CompressedResponseWrapper extends HttpServletResponseWrapper {
+  /** The size of compression buffers. */
+  private static final int BUFFER_SIZE = 8192;
+
+  private final String encoding;
+
+  private final Set<String> compressibleMimeTypes;
+
+  private final int minSize;
+
+  private final int level;
+
+  private final int fastLevel;
+
+  private final long fastLevelThreshold;
+
+  /** The content length declared by application (-1 if unknown), only sent if the response is not compressed. */
+  private long declaredContentLength = -1;
+
+  /** Whether compression has been disabled (response already encoded, error sent...). */
+  private boolean compressionDisabled;
+
+  private CompressionOutputStream outputStream;
+
+  private PrintWriter writer;
+
+  /**
+   * Constructs an instance of compressed response wrapper.
+   *
+   * @param response the response to wrap
+   * @param encoding the encoding used to compress (gzip or deflate)
+   * @param compressibleMimeTypes the MIME types of responses which can be compressed
+   * @param minSize the minimum size of responses to compress
+   * @param level the compression level
+   * @param fastLevel the compression level once the threshold is exceeded
+   * @param fastLevelThreshold the size after which the fast level is used
+   */
+  CompressedResponseWrapper(HttpServletResponse response, String encoding, Set<String> compressibleMimeTypes,
+                            int minSize, int level, int fastLevel, long fastLevelThreshold) {
+    super(response);
+    this.encoding = encoding;
+    this.compressibleMimeTypes = compressibleMimeTypes;
+    this.minSize = minSize;
+    this.level = level;
+    this.fastLevel = fastLevel;
+    this.fastLevelThreshold = fastLevelThreshold;
+  }
+
+  @Override
+  public ServletOutputStream getOutputStream() throws IOException {
+    if (writer != null) {
+      throw new IllegalStateException("getWriter() has already been called for this response");
+    }
+
+    return getCompressionOutputStream();
+  }
+
+  @Override
+  public PrintWriter getWriter() throws IOException {
+    if (writer == null) {
+      if (outputStream != null) {
+        throw new IllegalStateException("getOutputStream() has already been called for this response");
+      }
+
+      writer = new PrintWriter(new OutputStreamWriter(getCompressionOutputStream(), getCharacterEncoding()));
+    }
+
+    return writer;
+  }
+
+  @Override
+  public void setContentLength(int len) {
+    setContentLengthLong(len);
+  }
+
+  @Override
+  public void setContentLengthLong(long len) {
+    if (outputStream == null || !outputStream.decided) {
+      declaredContentLength = len;
+    } else if (!isCompressing()) {
+      super.setContentLengthLong(len);
+    }
+  }
+
+  @Override
+  public void setHeader(String name, String value) {
+    if ("Content-Length".equalsIgnoreCase(name)) {
+      setContentLengthLong(Long.parseLong(value));
+    } else {
+      disableIfEncoded(name);
+      super.setHeader(name, value);
+    }
+  }
+
+  @Override
+  public void addHeader(String name, String value) {
+    if ("Content-Length".equalsIgnoreCase(name)) {
+      setContentLengthLong(Long.parseLong(value));
+    } else {
+      disableIfEncoded(name);
+      super.addHeader(name, value);
+    }
+  }
+
+  @Override
+  public void flushBuffer() throws IOException {
+    if (writer != null) {
+      writer.flush();
+    }
+
+    if (isUndecided()) {
+      // Flushing an undecided response commits it: the content buffered is sent as is
+      compressionDisabled = true;
+      outputStream.decide();
+    } else if (outputStream != null) {
+      outputStream.flush();
+    }
+
+    super.flushBuffer();
+  }
+
+  @Override
+  public void sendError(int sc, String msg) throws IOException {
+    disable();
+    super.sendError(sc, msg);
+  }
+
+  @Override
+  public void sendError(int sc) throws IOException {
+    disable();
+    super.sendError(sc);
+  }
+
+  @Override
+  public void sendRedirect(String location) throws IOException {
+    disable();
+    super.sendRedirect(location);
+  }
+
+  @Override
+  public void reset() {
+    super.reset();
+    resetUndecidedBuffer();
+    declaredContentLength = -1;
+  }
+
+  @Override
+  public void resetBuffer() {
+    super.resetBuffer();
+    resetUndecidedBuffer();
+  }
+
+  /**
+   * Finishes the response: the content buffered is sent and the compressed stream is completed.
+   *
+   * @throws IOException if an I/O error occurs
+   */
+  void finish() throws IOException {
+    if (writer != null) {
+      writer.flush();
+    }
+
+    if (outputStream != null) {
+      outputStream.finish();
+    } else if (declaredContentLength >= 0) {
+      super.setContentLengthLong(declaredContentLength);
+    }
+  }
+
+  /**
+   * Releases the native memory held by the compressor, whether the response has been finished or not.
+   */
+  void release() {
+    if (outputStream != null) {
+      outputStream.release();
+    }
+  }
+
+  private CompressionOutputStream getCompressionOutputStream() throws IOException {
+    if (outputStream == null) {
+      outputStream = new CompressionOutputStream();
+    }
+
+    return outputStream;
+  }
+
+  private boolean isUndecided() {
+    return outputStream != null && !outputStream.decided;
+  }
+
+  private boolean isCompressing() {
+    return outputStream != null && outputStream.compressedStream != null;
+  }
+
+  private void disable() {
+    if (outputStream == null || !outputStream.decided) {
+      compressionDisabled = true;
+      resetUndecidedBuffer();
+    }
+  }
+
+  private void disableIfEncoded(String headerName) {
+    if ("Content-Encoding".equalsIgnoreCase(headerName)) {
+      compressionDisabled = true;
+    }
+  }
+
+  private void resetUndecidedBuffer() {
+    if (isUndecided()) {
+      outputStream.buffer.reset();
+    }
+  }
+
+  private boolean isCompressible() {
+    int status = getStatus();
+
+    if (compressionDisabled || status < 200 || status == SC_NO_CONTENT || status == SC_NOT_MODIFIED ||
+        getContentType() == null) {
+      return false;
+    }
+
+    String mimeType = getContentType().split(";")[0].trim().toLowerCase(Locale.ROOT);
+
+    return compressibleMimeTypes.contains(mimeType);
+  }
+
+  /**
+   * The output stream buffering the content until compression is decided, then compressing it (or not).
+   */
+  private final class CompressionOutputStream extends ServletOutputStream {
+    private ByteArrayOutputStream buffer = new ByteArrayOutputStream(Math.min(minSize, BUFFER_SIZE));
+
+    private boolean decided;
+
+    private OutputStream targetStream;
+
+    private DeflaterOutputStream compressedStream;
+
+    private Deflater deflater;
+
+    private long uncompressedSize;
+
+    @Override
+    public void write(int b) throws IOException {
+      write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      if (!decided) {
+        buffer.write(b, off, len);
+
+        if (buffer.size() >= minSize) {
+          decide();
+        }
+      } else if (compressedStream != null) {
+        uncompressedSize += len;
+
+        if (uncompressedSize > fastLevelThreshold && fastLevel != level) {
+          deflater.setLevel(fastLevel);
+        }
+        compressedStream.write(b, off, len);
+      } else {
+        targetStream.write(b, off, len);
+      }
+    }
+
+    // The content is kept buffered until the minimum size is reached, so that small responses are not compressed
+    @Override
+    public void flush() throws IOException {
+      if (decided) {
+        (compressedStream != null ? compressedStream : targetStream).flush();
+      }
+    }
+
+    @Override
+    public boolean isReady() {
+      return true;
+    }
+
+    // Compressed writes are buffered by the deflater and blocking, they can not be driven by a write listener
+    @Override
+    public void setWriteListener(WriteListener writeListener) {
+      throw new UnsupportedOperationException("Non-blocking writes are not supported by compressed responses");
+    }
+
+    private void decide() throws IOException {
+      HttpServletResponse response = (HttpServletResponse) getResponse();
+      decided = true;
+      targetStream = response.getOutputStream();
+
+      if (isCompressible()) {
+        response.setHeader("Content-Encoding", encoding);
+        response.addHeader("Vary", "Accept-Encoding");
+
+        // The compressed representation differs from the identity one, so its entity tag can only be weak
+        String eTag = response.getHeader("ETag");
+        if (eTag != null && !eTag.startsWith("W/")) {
+          response.setHeader("ETag", "W/" + eTag);
+        }
+
+        int initialLevel = declaredContentLength > fastLevelThreshold ? fastLevel : level;
+        if (CompressionFilter.GZIP.equals(encoding)) {
+          LeveledGzipOutputStream gzipStream = new LeveledGzipOutputStream(targetStream, initialLevel);
+          deflater = gzipStream.getDeflater();
+          compressedStream = gzipStream;
+        } else {
+          deflater = new Deflater(initialLevel);
+          compressedStream = new DeflaterOutputStream(targetStream, deflater, BUFFER_SIZE, true);
+        }
+
+        uncompressedSize = buffer.size();
+        buffer.writeTo(compressedStream);
+      } else {
+        if (declaredContentLength >= 0) {
+          response.setContentLengthLong(declaredContentLength);
+        }
+
+        buffer.writeTo(targetStream);
+      }
+
+      buffer = null;
+    }
+
+    private void finish() throws IOException {
+      if (!decided) {
+        // The whole content is buffered: it is too small to be compressed and its length is known
+        HttpServletResponse response = (HttpServletResponse) getResponse();
+        decided = true;
+        targetStream = response.getOutputStream();
+
+        if (buffer.size() > 0) {
+          response.setContentLength(buffer.size());
+          buffer.writeTo(targetStream);
+        }
+        buffer = null;
+      } else if (compressedStream != null) {
+        try {
+          compressedStream.finish();
+        } finally {
+          release();
+        }
+      }
+
+      targetStream.flush();
+    }
+
+    // Deflaters are not ended by finishing their streams (nor by closing a stream given its deflater)
+    private void release() {
+      if (deflater != null) {
+        deflater.end();
+      }
+    }
+  }
+
+  /**
+   * The gzip output stream whose compression level can be changed while writing.
+   */
+  private static final class LeveledGzipOutputStream extends GZIPOutputStream {
+    private LeveledGzipOutputStream(OutputStream out, int level) throws IOException {
+      super(out, BUFFER_SIZE, true);
+      def.setLevel(level);
+    }
+
+    private Deflater getDeflater() {
+      return def;
+    }
+  }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright (C) 2017 The Store API Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package be.bulck.example.store.api.compression;
+
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.servlet.DispatcherType;
+
+/**
+ * The compression configuration.
+ *
+ * The compression of responses and the decompression of requests are configured through the "compression"
+ * properties.
+ *
+ * @author Fabien Vanden Bulck
+ */
+@Configuration
+public class CompressionConfiguration {
+  // The filter must also wrap async dispatches to complete the compression of streaming responses (it runs inside
+  // the request metrics filter, so that compression time is part of the latency recorded)
+  @Bean
+  public FilterRegistrationBean compressionFilterRegistration(CompressionFilter compressionFilter) {
+    FilterRegistrationBean registration = new FilterRegistrationBean(compressionFilter);
+    registration.setDispatcherTypes(DispatcherType.REQUEST, DispatcherType.ASYNC);
+    registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 2);
+
+    return registration;
+  }
+}
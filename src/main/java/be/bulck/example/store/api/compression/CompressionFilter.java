@@ -0,0 +1,160 @@
+/*
+ * Copyright (C) 2017 The Store API Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package be.bulck.example.store.api.compression;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.WebUtils;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * The filter compressing responses (gzip or deflate, as accepted by client) and decompressing request bodies sent with
+ * a gzip or deflate content encoding.
+ *
+ * Responses are buffered until they reach a minimum size: smaller responses are sent as is, larger ones are compressed
+ * if their content type is allowed. Responses are compressed with a balanced level, then with a fast level once they
+ * exceed a threshold (large lists and exports), to bound the CPU spent per response.
+ *
+ * @author Fabien Vanden Bulck
+ */
+@Component
+public class CompressionFilter extends OncePerRequestFilter {
+  /** The encoding gzip. */
+  static final String GZIP = "gzip";
+
+  /** The encoding deflate. */
+  static final String DEFLATE = "deflate";
+
+  @Value("${compression.response.enabled:true}")
+  private boolean responseCompressionEnabled;
+
+  @Value("${compression.response.min-size:2048}")
+  private int minResponseSize;
+
+  @Value("${compression.response.mime-types:application/json,application/xml,text/xml,text/plain}")
+  private String[] mimeTypes;
+
+  @Value("${compression.response.level:6}")
+  private int level;
+
+  @Value("${compression.response.fast-level:1}")
+  private int fastLevel;
+
+  @Value("${compression.response.fast-level-threshold:1048576}")
+  private long fastLevelThreshold;
+
+  @Value("${compression.request.enabled:true}")
+  private boolean requestDecompressionEnabled;
+
+  @Value("${compression.request.max-inflated-size:52428800}")
+  private long maxInflatedRequestSize;
+
+  /** The MIME types of responses which can be compressed. */
+  private Set<String> compressibleMimeTypes;
+
+  @Override
+  protected void initFilterBean() throws ServletException {
+    compressibleMimeTypes = Arrays.stream(mimeTypes)
+        .map(mimeType -> mimeType.trim().toLowerCase(Locale.ROOT))
+        .collect(Collectors.toCollection(HashSet::new));
+  }
+
+  // Streaming responses are completed during the async dispatch
+  @Override
+  protected boolean shouldNotFilterAsyncDispatch() {
+    return false;
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+      throws ServletException, IOException {
+    HttpServletRequest filteredRequest = request;
+    HttpServletResponse filteredResponse = response;
+    CompressedResponseWrapper compressedResponse = WebUtils.getNativeResponse(response, CompressedResponseWrapper.class);
+
+    if (!isAsyncDispatch(request)) {
+      String requestEncoding = request.getHeader("Content-Encoding");
+
+      if (requestDecompressionEnabled && requestEncoding != null) {
+        String encoding = requestEncoding.trim().toLowerCase(Locale.ROOT);
+
+        if (GZIP.equals(encoding) || DEFLATE.equals(encoding)) {
+          filteredRequest = new DecompressedRequestWrapper(request, encoding, maxInflatedRequestSize);
+        }
+      }
+
+      String responseEncoding = responseCompressionEnabled ? selectEncoding(request.getHeader("Accept-Encoding")) : null;
+
+      if (responseEncoding != null) {
+        compressedResponse = new CompressedResponseWrapper(response, responseEncoding, compressibleMimeTypes,
+            minResponseSize, level, fastLevel, fastLevelThreshold);
+        filteredResponse = compressedResponse;
+      }
+    }
+
+    try {
+      chain.doFilter(filteredRequest, filteredResponse);
+
+      if (compressedResponse != null && !isAsyncStarted(request)) {
+        compressedResponse.finish();
+      }
+    } finally {
+      // The compressor is released even if the chain fails, the response is then not finished
+      if (compressedResponse != null && !isAsyncStarted(request)) {
+        compressedResponse.release();
+      }
+    }
+  }
+
+  // gzip is preferred to deflate, as some clients expect raw deflate data instead of zlib data for "deflate"
+  private static String selectEncoding(String acceptEncoding) {
+    if (acceptEncoding == null) {
+      return null;
+    }
+
+    boolean deflateAccepted = false;
+
+    for (String acceptedEncoding : acceptEncoding.split(",")) {
+      String[] encodingParts = acceptedEncoding.split(";");
+      String encoding = encodingParts[0].trim().toLowerCase(Locale.ROOT);
+
+      if (encodingParts.length > 1 && encodingParts[1].trim().matches("q\\s*=\\s*0(\\.0*)?")) {
+        continue;
+      }
+
+      if (GZIP.equals(encoding) || "*".equals(encoding)) {
+        return GZIP;
+      } else if (DEFLATE.equals(encoding)) {
+        deflateAccepted = true;
+      }
+    }
+
+    return deflateAccepted ? DEFLATE : null;
+  }
+}
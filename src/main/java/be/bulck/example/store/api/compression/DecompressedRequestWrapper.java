@@ -0,0 +1,210 @@
+/*
+ * Copyright (C) 2017 The Store API Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package be.bulck.example.store.api.compression;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * The request wrapper decompressing the body of request, within a maximum inflated size (to protect against
+ * decompression bombs).
+ *
+ * The request is presented as not encoded: its Content-Encoding and Content-Length headers are hidden.
+ *
+ * @author Fabien Vanden Bulck
+ */
+class DecompressedRequestWrapper extends HttpServletRequestWrapper {
+  private final String encoding;
+
+  private final long maxInflatedSize;
+
+  private ServletInputStream inputStream;
+
+  private BufferedReader reader;
+
+  /**
+   * Constructs an instance of decompressed request wrapper.
+   *
+   * @param request the request to wrap
+   * @param encoding the encoding of request body (gzip or deflate)
+   * @param maxInflatedSize the maximum size of request body once decompressed
+   */
+  DecompressedRequestWrapper(HttpServletRequest request, String encoding, long maxInflatedSize) {
+    super(request);
+    this.encoding = encoding;
+    this.maxInflatedSize = maxInflatedSize;
+  }
+
+  // The body is only decompressed when it is read, so that a malformed body is reported as an unreadable content
+  @Override
+  public ServletInputStream getInputStream() throws IOException {
+    if (reader != null) {
+      throw new IllegalStateException("getReader() has already been called for this request");
+    }
+
+    return getDecompressedInputStream();
+  }
+
+  @Override
+  public BufferedReader getReader() throws IOException {
+    if (reader == null) {
+      if (inputStream != null) {
+        throw new IllegalStateException("getInputStream() has already been called for this request");
+      }
+
+      String characterEncoding = getCharacterEncoding() != null ? getCharacterEncoding() : "ISO-8859-1";
+      reader = new BufferedReader(new InputStreamReader(getDecompressedInputStream(), characterEncoding));
+    }
+
+    return reader;
+  }
+
+  @Override
+  public int getContentLength() {
+    return -1;
+  }
+
+  @Override
+  public long getContentLengthLong() {
+    return -1;
+  }
+
+  @Override
+  public String getHeader(String name) {
+    return isHidden(name) ? null : super.getHeader(name);
+  }
+
+  @Override
+  public Enumeration<String> getHeaders(String name) {
+    return isHidden(name) ? Collections.emptyEnumeration() : super.getHeaders(name);
+  }
+
+  @Override
+  public Enumeration<String> getHeaderNames() {
+    List<String> headerNames = Collections.list(super.getHeaderNames()).stream()
+        .filter(headerName -> !isHidden(headerName))
+        .collect(Collectors.toList());
+
+    return Collections.enumeration(headerNames);
+  }
+
+  @Override
+  public int getIntHeader(String name) {
+    return isHidden(name) ? -1 : super.getIntHeader(name);
+  }
+
+  private ServletInputStream getDecompressedInputStream() throws IOException {
+    if (inputStream == null) {
+      InputStream compressedStream = super.getInputStream();
+      InputStream decompressedStream = CompressionFilter.GZIP.equals(encoding) ?
+          new GZIPInputStream(compressedStream) : new InflaterInputStream(compressedStream);
+
+      inputStream = new LimitedInputStream(decompressedStream, maxInflatedSize);
+    }
+
+    return inputStream;
+  }
+
+  private static boolean isHidden(String headerName) {
+    return "Content-Encoding".equalsIgnoreCase(headerName) || "Content-Length".equalsIgnoreCase(headerName);
+  }
+
+  /**
+   * The input stream failing once more than a maximum number of bytes has been read.
+   */
+  private static final class LimitedInputStream extends ServletInputStream {
+    private final InputStream inputStream;
+
+    private final long maxSize;
+
+    private long readSize;
+
+    private boolean finished;
+
+    private LimitedInputStream(InputStream inputStream, long maxSize) {
+      this.inputStream = inputStream;
+      this.maxSize = maxSize;
+    }
+
+    @Override
+    public int read() throws IOException {
+      int b = inputStream.read();
+
+      if (b == -1) {
+        finished = true;
+      } else {
+        checkSize(1);
+      }
+
+      return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      int count = inputStream.read(b, off, len);
+
+      if (count == -1) {
+        finished = true;
+      } else {
+        checkSize(count);
+      }
+
+      return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+      inputStream.close();
+    }
+
+    @Override
+    public boolean isFinished() {
+      return finished;
+    }
+
+    @Override
+    public boolean isReady() {
+      return true;
+    }
+
+    @Override
+    public void setReadListener(ReadListener readListener) {
+      throw new UnsupportedOperationException("Non-blocking reads are not supported by decompressed requests");
+    }
+
+    private void checkSize(int count) throws IOException {
+      readSize += count;
+
+      if (readSize > maxSize) {
+        throw new IOException("Request body exceeds the maximum size of " + maxSize + " bytes once decompressed");
+      }
+    }
+  }
+}
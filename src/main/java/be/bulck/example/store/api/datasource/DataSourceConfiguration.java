@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2017 The Store API Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package be.bulck.example.store.api.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The datasource configuration.
+ *
+ * The primary datasource is a HikariCP pool configured through the "spring.datasource" and "spring.datasource.hikari"
+ * properties; read replicas listed in "datasource.replicas" get the same pool settings. Read-only transactions are
+ * routed to replicas by {@link ReadReplicaRoutingDataSource}, the wait and usage metrics of pools are collected by
+ * {@link HikariPoolMetrics} and the statements executed by each request are measured by {@link StatisticsDataSource}.
+ *
+ * @author Fabien Vanden Bulck
+ */
+@Configuration
+@ConfigurationProperties("datasource")
+public class DataSourceConfiguration {
+  /** The read replicas of database. */
+  private List<DataSourceReplica> replicas;
+
+  /** The duration (in milliseconds) during which a failing replica is not used. */
+  private long replicaMarkDownDuration;
+
+  /**
+   * Constructs an instance of datasource configuration.
+   */
+  public DataSourceConfiguration() {
+    replicas = new ArrayList<>();
+    replicaMarkDownDuration = 30000;
+  }
+
+  @Bean
+  public static HikariPoolMetrics hikariPoolMetrics() {
+    return new HikariPoolMetrics();
+  }
+
+  @Bean
+  public static HikariPoolMetricsRegistrar hikariPoolMetricsRegistrar(HikariPoolMetrics hikariPoolMetrics) {
+    return new HikariPoolMetricsRegistrar(hikariPoolMetrics);
+  }
+
+  @Bean
+  @ConfigurationProperties("spring.datasource.hikari")
+  public HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+    return (HikariDataSource) dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+  }
+
+  @Bean
+  public ReadReplicaRoutingDataSource routingDataSource(HikariDataSource primaryDataSource) {
+    List<DataSource> replicaDataSources = new ArrayList<>(replicas.size());
+
+    for (int i = 0; i < replicas.size(); i++) {
+      replicaDataSources.add(createReplicaDataSource(primaryDataSource, replicas.get(i), i));
+    }
+
+    return new ReadReplicaRoutingDataSource(primaryDataSource, replicaDataSources, replicaMarkDownDuration);
+  }
+
+  @Bean
+  @Primary
+  public DataSource dataSource(ReadReplicaRoutingDataSource routingDataSource) {
+    return new LazyConnectionDataSourceProxy(new StatisticsDataSource(routingDataSource));
+  }
+
+  /**
+   * Gets the read replicas of database.
+   *
+   * @return a list which contains the read replicas of database
+   */
+  public List<DataSourceReplica> getReplicas() {
+    return replicas;
+  }
+
+  /**
+   * Sets the read replicas of database.
+   *
+   * @param replicas the new list which contains the read replicas of database
+   */
+  public void setReplicas(List<DataSourceReplica> replicas) {
+    this.replicas = replicas;
+  }
+
+  /**
+   * Gets the duration (in milliseconds) during which a failing replica is not used.
+   *
+   * @return the duration during which a failing replica is not used
+   */
+  public long getReplicaMarkDownDuration() {
+    return replicaMarkDownDuration;
+  }
+
+  /**
+   * Sets the duration (in milliseconds) during which a failing replica is not used.
+   *
+   * @param replicaMarkDownDuration the new duration during which a failing replica is not used
+   */
+  public void setReplicaMarkDownDuration(long replicaMarkDownDuration) {
+    this.replicaMarkDownDuration = replicaMarkDownDuration;
+  }
+
+  // The pool of replica is started on first use, so that an unavailable replica does not prevent the startup
+  private static HikariDataSource createReplicaDataSource(HikariDataSource primaryDataSource,
+                                                          DataSourceReplica replica, int index) {
+    HikariDataSource replicaDataSource = new HikariDataSource();
+    primaryDataSource.copyState(replicaDataSource);
+
+    replicaDataSource.setPoolName(primaryDataSource.getPoolName() + "-replica-" + index);
+    replicaDataSource.setJdbcUrl(replica.getUrl());
+    replicaDataSource.setUsername(replica.getUsername());
+    replicaDataSource.setPassword(replica.getPassword());
+    replicaDataSource.setReadOnly(true);
+
+    return replicaDataSource;
+  }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2017 The Store API Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package be.bulck.example.store.api.datasource;
+
+/**
+ * The class representing a read replica of database.
+ *
+ * @author Fabien Vanden Bulck
+ */
+public class DataSourceReplica {
+  /** The JDBC URL of replica. */
+  private String url;
+
+  /** The username used to connect to replica. */
+  private String username;
+
+  /** The password used to connect to replica. */
+  private String password;
+
+  /**
+   * Constructs an instance of datasource replica.
+   */
+  public DataSourceReplica() {}
+
+  /**
+   * Gets the JDBC URL of replica.
+   *
+   * @return the JDBC URL of replica
+   */
+  public String getUrl() {
+    return url;
+  }
+
+  /**
+   * Sets the JDBC URL of replica.
+   *
+   * @param url the new JDBC URL of replica
+   */
+  public void setUrl(String url) {
+    this.url = url;
+  }
+
+  /**
+   * Gets the username used to connect to replica.
+   *
+   * @return the username used to connect to replica
+   */
+  public String getUsername() {
+    return username;
+  }
+
+  /**
+   * Sets the username used to connect to replica.
+   *
+   * @param username the new username used to connect to replica
+   */
+  public void setUsername(String username) {
+    this.username = username;
+  }
+
+  /**
+   * Gets the password used to connect to replica.
+   *
+   * @return the password used to connect to replica
+   */
+  public String getPassword() {
+    return password;
+  }
+
+  /**
+   * Sets the password used to connect to replica.
+   *
+   * @param password the new password used to connect to replica
+   */
+  public void setPassword(String password) {
+    this.password = password;
+  }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright (C) 2017 The Store API Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package be.bulck.example.store.api.datasource;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The metrics of HikariCP connection pools: time waited to acquire a connection, time a connection is used and
+ * number of acquisition timeouts (the pool sizes are exposed by HikariCP itself through JMX).
+ *
+ * @author Fabien Vanden Bulck
+ */
+@ManagedResource(objectName = "be.bulck.example.store.api:type=HikariPoolMetrics")
+public class HikariPoolMetrics implements MetricsTrackerFactory {
+  /** The metrics by pool name. */
+  private final Map<String, PoolMetrics> poolMetrics = new ConcurrentHashMap<>();
+
+  @Override
+  public IMetricsTracker create(String poolName, PoolStats poolStats) {
+    PoolMetrics metrics = new PoolMetrics(poolStats);
+    poolMetrics.put(poolName, metrics);
+
+    return metrics;
+  }
+
+  /**
+   * Gets the metrics of pools.
+   *
+   * @return an unmodifiable map containing the metrics by pool name
+   */
+  public Map<String, PoolMetrics> getPoolMetrics() {
+    return Collections.unmodifiableMap(poolMetrics);
+  }
+
+  /**
+   * Gets a summary of the metrics of pools (for JMX clients).
+   *
+   * @return a map containing the summary of metrics by pool name
+   */
+  @ManagedAttribute(description = "Wait and usage metrics of connection pools")
+  public Map<String, String> getSummary() {
+    Map<String, String> summary = new LinkedHashMap<>();
+    poolMetrics.forEach((poolName, metrics) -> summary.put(poolName, metrics.toString()));
+
+    return summary;
+  }
+
+  /**
+   * The metrics of a connection pool.
+   */
+  public static final class PoolMetrics implements IMetricsTracker {
+    /** The statistics of pool (sizes). */
+    private final PoolStats poolStats;
+
+    private final LongAdder acquireCount = new LongAdder();
+
+    private final LongAdder acquireNanos = new LongAdder();
+
+    private final LongAccumulator maxAcquireNanos = new LongAccumulator(Math::max, 0L);
+
+    private final LongAdder usageCount = new LongAdder();
+
+    private final LongAdder usageMillis = new LongAdder();
+
+    private final LongAccumulator maxUsageMillis = new LongAccumulator(Math::max, 0L);
+
+    private final LongAdder timeoutCount = new LongAdder();
+
+    private final LongAdder creationCount = new LongAdder();
+
+    private PoolMetrics(PoolStats poolStats) {
+      this.poolStats = poolStats;
+    }
+
+    @Override
+    public void recordConnectionCreatedMillis(long connectionCreatedMillis) {
+      creationCount.increment();
+    }
+
+    @Override
+    public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+      acquireCount.increment();
+      acquireNanos.add(elapsedAcquiredNanos);
+      maxAcquireNanos.accumulate(elapsedAcquiredNanos);
+    }
+
+    @Override
+    public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+      usageCount.increment();
+      usageMillis.add(elapsedBorrowedMillis);
+      maxUsageMillis.accumulate(elapsedBorrowedMillis);
+    }
+
+    @Override
+    public void recordConnectionTimeout() {
+      timeoutCount.increment();
+    }
+
+    public int getActiveConnections() {
+      return poolStats.getActiveConnections();
+    }
+
+    public int getIdleConnections() {
+      return poolStats.getIdleConnections();
+    }
+
+    public int getTotalConnections() {
+      return poolStats.getTotalConnections();
+    }
+
+    public int getPendingThreads() {
+      return poolStats.getPendingThreads();
+    }
+
+    public long getAcquireCount() {
+      return acquireCount.sum();
+    }
+
+    public long getAcquireNanos() {
+      return acquireNanos.sum();
+    }
+
+    public long getMaxAcquireNanos() {
+      return maxAcquireNanos.get();
+    }
+
+    public long getUsageCount() {
+      return usageCount.sum();
+    }
+
+    public long getUsageMillis() {
+      return usageMillis.sum();
+    }
+
+    public long getMaxUsageMillis() {
+      return maxUsageMillis.get();
+    }
+
+    public long getTimeoutCount() {
+      return timeoutCount.sum();
+    }
+
+    public long getCreationCount() {
+      return creationCount.sum();
+    }
+
+    @Override
+    public String toString() {
+      long acquisitions = getAcquireCount();
+      long usages = getUsageCount();
+
+      return "PoolMetrics{" +
+          "active=" + getActiveConnections() +
+          ", idle=" + getIdleConnections() +
+          ", total=" + getTotalConnections() +
+          ", pending=" + getPendingThreads() +
+          ", acquisitions=" + acquisitions +
+          ", meanAcquireMicros=" + (acquisitions > 0 ? TimeUnit.NANOSECONDS.toMicros(getAcquireNanos() / acquisitions) : 0) +
+          ", maxAcquireMicros=" + TimeUnit.NANOSECONDS.toMicros(getMaxAcquireNanos()) +
+          ", meanUsageMillis=" + (usages > 0 ? getUsageMillis() / usages : 0) +
+          ", maxUsageMillis=" + getMaxUsageMillis() +
+          ", timeouts=" + getTimeoutCount() +
+          ", creations=" + getCreationCount() +
+          '}';
+    }
+  }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2017 The Store API Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package be.bulck.example.store.api.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+/**
+ * The bean post processor registering the pool metrics on each HikariCP datasource (before its pool is started).
+ *
+ * @author Fabien Vanden Bulck
+ */
+public class HikariPoolMetricsRegistrar implements BeanPostProcessor {
+  /** The metrics of connection pools. */
+  private final HikariPoolMetrics hikariPoolMetrics;
+
+  /**
+   * Constructs an instance of HikariCP pool metrics registrar.
+   *
+   * @param hikariPoolMetrics the metrics of connection pools
+   */
+  public HikariPoolMetricsRegistrar(HikariPoolMetrics hikariPoolMetrics) {
+    this.hikariPoolMetrics = hikariPoolMetrics;
+  }
+
+  @Override
+  public Object postProcessBeforeInitialization(Object bean, String beanName) throws BeansException {
+    return bean;
+  }
+
+  @Override
+  public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+    if (bean instanceof HikariDataSource) {
+      ((HikariDataSource) bean).setMetricsTrackerFactory(hikariPoolMetrics);
+    }
+
+    return bean;
+  }
+}
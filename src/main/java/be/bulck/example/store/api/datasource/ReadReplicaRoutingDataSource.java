@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2017 The Store API Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package be.bulck.example.store.api.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The datasource routing the connections of read-only transactions to read replicas (in round-robin) and all other
+ * connections to the primary datasource.
+ *
+ * A replica failing to provide a connection is marked down for a while and the next replica is tried; when no replica
+ * is available, the primary datasource is used. The routing decision is made when a connection is requested, so this
+ * datasource must be wrapped in a LazyConnectionDataSourceProxy: the read-only flag of transaction is only known once
+ * the transaction has begun.
+ *
+ * @author Fabien Vanden Bulck
+ */
+public class ReadReplicaRoutingDataSource extends AbstractDataSource implements Closeable {
+  /** The logger. */
+  private static final Logger LOGGER = LoggerFactory.getLogger(ReadReplicaRoutingDataSource.class);
+
+  /** The primary datasource. */
+  private final DataSource primaryDataSource;
+
+  /** The replica datasources. */
+  private final List<DataSource> replicaDataSources;
+
+  /** The duration (in nanoseconds) during which a failing replica is not used. */
+  private final long markDownNanos;
+
+  /** The time (System.nanoTime) until which each replica is marked down (0 if it is up). */
+  private final AtomicLongArray markedDownUntil;
+
+  /** The counter used to select replicas in round-robin. */
+  private final AtomicInteger nextReplica = new AtomicInteger();
+
+  /**
+   * Constructs an instance of read replica routing datasource.
+   *
+   * @param primaryDataSource the primary datasource
+   * @param replicaDataSources the replica datasources (may be empty)
+   * @param markDownMillis the duration (in milliseconds) during which a failing replica is not used
+   */
+  public ReadReplicaRoutingDataSource(DataSource primaryDataSource, List<DataSource> replicaDataSources,
+                                      long markDownMillis) {
+    this.primaryDataSource = primaryDataSource;
+    this.replicaDataSources = new ArrayList<>(replicaDataSources);
+    this.markDownNanos = TimeUnit.MILLISECONDS.toNanos(markDownMillis);
+    this.markedDownUntil = new AtomicLongArray(replicaDataSources.size());
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    if (!replicaDataSources.isEmpty() && TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+      Connection connection = getReplicaConnection();
+
+      if (connection != null) {
+        return connection;
+      }
+    }
+
+    return primaryDataSource.getConnection();
+  }
+
+  @Override
+  public Connection getConnection(String username, String password) throws SQLException {
+    return primaryDataSource.getConnection(username, password);
+  }
+
+  /**
+   * Closes the replica datasources (the primary datasource is managed by the application context).
+   */
+  @Override
+  public void close() throws IOException {
+    for (DataSource replicaDataSource : replicaDataSources) {
+      if (replicaDataSource instanceof Closeable) {
+        ((Closeable) replicaDataSource).close();
+      }
+    }
+  }
+
+  private Connection getReplicaConnection() {
+    int replicaCount = replicaDataSources.size();
+    int firstIndex = Math.floorMod(nextReplica.getAndIncrement(), replicaCount);
+
+    for (int i = 0; i < replicaCount; i++) {
+      int index = (firstIndex + i) % replicaCount;
+      long downUntil = markedDownUntil.get(index);
+
+      if (downUntil != 0 && System.nanoTime() - downUntil < 0) {
+        continue;
+      }
+
+      try {
+        Connection connection = replicaDataSources.get(index).getConnection();
+        markedDownUntil.set(index, 0);
+
+        return connection;
+      } catch (SQLException exception) {
+        markedDownUntil.set(index, System.nanoTime() + markDownNanos);
+        LOGGER.warn("Replica #{} is unavailable, it is marked down for {} ms", index,
+            TimeUnit.NANOSECONDS.toMillis(markDownNanos), exception);
+      }
+    }
+
+    return null;
+  }
+}
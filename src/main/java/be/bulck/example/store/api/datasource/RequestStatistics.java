@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2017 The Store API Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package be.bulck.example.store.api.datasource;
+
+/**
+ * The database statistics of a request: SQL statements executed, time spent executing them and time waited to obtain
+ * connections.
+ *
+ * Statistics are bound to the thread processing the request, so that the connections opened by this thread are
+ * attributed to the request (work done by other threads, like streaming exports, is not counted). Collections may be
+ * nested (e.g. a test measuring an operation around the collection of the request): the statistics of a nested
+ * collection are added to the enclosing one.
+ *
+ * The statements of work isolated from the request, like the allocation of identifier blocks on a separate
+ * connection, are counted too but also reported apart (see {@link #getIsolatedStatementCount()}).
+ *
+ * @author Fabien Vanden Bulck
+ */
+public final class RequestStatistics {
+  /** The statistics of the request processed by current thread. */
+  private static final ThreadLocal<RequestStatistics> CURRENT = new ThreadLocal<>();
+
+  /** The enclosing statistics (null if the collection is not nested). */
+  private final RequestStatistics parent;
+
+  private int statementCount;
+
+  private int isolatedStatementCount;
+
+  private long statementNanos;
+
+  private int connectionCount;
+
+  private long connectionWaitNanos;
+
+  /** The depth of isolated works in progress. */
+  private int isolatedWorkDepth;
+
+  private RequestStatistics(RequestStatistics parent) {
+    this.parent = parent;
+  }
+
+  /**
+   * Begins to collect the statistics of a request processed by current thread.
+   *
+   * @return the statistics of request
+   */
+  public static RequestStatistics begin() {
+    RequestStatistics statistics = new RequestStatistics(CURRENT.get());
+    CURRENT.set(statistics);
+
+    return statistics;
+  }
+
+  /**
+   * Gets the statistics of the request processed by current thread.
+   *
+   * @return the statistics of request (or null if no request is processed)
+   */
+  public static RequestStatistics current() {
+    return CURRENT.get();
+  }
+
+  /**
+   * Ends to collect the statistics of the request processed by current thread (the enclosing collection, if any,
+   * becomes current again).
+   */
+  public static void end() {
+    RequestStatistics statistics = CURRENT.get();
+
+    if (statistics != null && statistics.parent != null) {
+      CURRENT.set(statistics.parent);
+    } else {
+      CURRENT.remove();
+    }
+  }
+
+  /**
+   * Begins a work isolated from the request: the statements executed until {@link #endIsolatedWork()} are reported as
+   * isolated statements.
+   */
+  public void beginIsolatedWork() {
+    isolatedWorkDepth++;
+  }
+
+  /**
+   * Ends a work isolated from the request.
+   */
+  public void endIsolatedWork() {
+    isolatedWorkDepth--;
+  }
+
+  void recordStatement(long nanos) {
+    recordStatement(nanos, isolatedWorkDepth > 0);
+  }
+
+  void recordConnection(long waitNanos) {
+    connectionCount++;
+    connectionWaitNanos += waitNanos;
+
+    if (parent != null) {
+      parent.recordConnection(waitNanos);
+    }
+  }
+
+  private void recordStatement(long nanos, boolean isolated) {
+    statementCount++;
+    statementNanos += nanos;
+
+    if (isolated) {
+      isolatedStatementCount++;
+    }
+
+    if (parent != null) {
+      parent.recordStatement(nanos, isolated);
+    }
+  }
+
+  public int getStatementCount() {
+    return statementCount;
+  }
+
+  public int getIsolatedStatementCount() {
+    return isolatedStatementCount;
+  }
+
+  public long getStatementNanos() {
+    return statementNanos;
+  }
+
+  public int getConnectionCount() {
+    return connectionCount;
+  }
+
+  public long getConnectionWaitNanos() {
+    return connectionWaitNanos;
+  }
+
+  @Override
+  public String toString() {
+    return "RequestStatistics{" +
+        "statementCount=" + statementCount +
+        ", isolatedStatementCount=" + isolatedStatementCount +
+        ", statementNanos=" + statementNanos +
+        ", connectionCount=" + connectionCount +
+        ", connectionWaitNanos=" + connectionWaitNanos +
+        '}';
+  }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) 2017 The Store API Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package be.bulck.example.store.api.datasource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * The datasource collecting the {@link RequestStatistics} of requests: it measures the time waited to obtain a
+ * connection and, through proxies of connections and statements, the number and the duration of statements executed.
+ *
+ * Connections obtained outside of a request are returned as is.
+ *
+ * @author Fabien Vanden Bulck
+ */
+public class StatisticsDataSource extends DelegatingDataSource {
+  /**
+   * Constructs an instance of statistics datasource.
+   *
+   * @param targetDataSource the datasource providing the connections
+   */
+  public StatisticsDataSource(DataSource targetDataSource) {
+    super(targetDataSource);
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    RequestStatistics statistics = RequestStatistics.current();
+
+    if (statistics == null) {
+      return super.getConnection();
+    }
+
+    long start = System.nanoTime();
+    Connection connection = super.getConnection();
+    statistics.recordConnection(System.nanoTime() - start);
+
+    return proxy(Connection.class, new ConnectionHandler(connection, statistics));
+  }
+
+  @Override
+  public Connection getConnection(String username, String password) throws SQLException {
+    RequestStatistics statistics = RequestStatistics.current();
+
+    if (statistics == null) {
+      return super.getConnection(username, password);
+    }
+
+    long start = System.nanoTime();
+    Connection connection = super.getConnection(username, password);
+    statistics.recordConnection(System.nanoTime() - start);
+
+    return proxy(Connection.class, new ConnectionHandler(connection, statistics));
+  }
+
+  private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+    return type.cast(Proxy.newProxyInstance(StatisticsDataSource.class.getClassLoader(), new Class<?>[] {type}, handler));
+  }
+
+  private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+    try {
+      return method.invoke(target, args);
+    } catch (InvocationTargetException exception) {
+      throw exception.getTargetException();
+    }
+  }
+
+  /**
+   * The handler of connection proxies, returning proxies of the statements created.
+   */
+  private static final class ConnectionHandler implements InvocationHandler {
+    private final Connection connection;
+
+    private final RequestStatistics statistics;
+
+    private ConnectionHandler(Connection connection, RequestStatistics statistics) {
+      this.connection = connection;
+      this.statistics = statistics;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      Object result = StatisticsDataSource.invoke(connection, method, args);
+
+      if (result instanceof Statement && Statement.class.isAssignableFrom(method.getReturnType())) {
+        return proxy(method.getReturnType(), new StatementHandler((Statement) result, statistics));
+      }
+
+      return result;
+    }
+  }
+
+  /**
+   * The handler of statement proxies, measuring the executions of statements (one per round-trip, batches included).
+   */
+  private static final class StatementHandler implements InvocationHandler {
+    private final Statement statement;
+
+    private final RequestStatistics statistics;
+
+    private StatementHandler(Statement statement, RequestStatistics statistics) {
+      this.statement = statement;
+      this.statistics = statistics;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      if (!method.getName().startsWith("execute")) {
+        return StatisticsDataSource.invoke(statement, method, args);
+      }
+
+      long start = System.nanoTime();
+      try {
+        return StatisticsDataSource.invoke(statement, method, args);
+      } finally {
+        statistics.recordStatement(System.nanoTime() - start);
+      }
+    }
+  }
+}
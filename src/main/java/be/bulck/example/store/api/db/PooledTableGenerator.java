@@ -0,0 +1,50 @@
+/*
+ * Copyright (C) 2017 The Store API Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package be.bulck.example.store.api.db;
+
+import be.bulck.example.store.api.datasource.RequestStatistics;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.id.enhanced.TableGenerator;
+
+import java.io.Serializable;
+
+/**
+ * The table generator of entity identifiers (blocks allocated in the "id_generator" table, on a separate connection).
+ *
+ * The allocation of a block is a work isolated from the request which triggers it (once every block), so its
+ * statements are reported apart in the {@link RequestStatistics} of request.
+ *
+ * @author Fabien Vanden Bulck
+ */
+public class PooledTableGenerator extends TableGenerator {
+  @Override
+  public Serializable generate(SessionImplementor session, Object object) {
+    RequestStatistics statistics = RequestStatistics.current();
+
+    if (statistics == null) {
+      return super.generate(session, object);
+    }
+
+    statistics.beginIsolatedWork();
+    try {
+      return super.generate(session, object);
+    } finally {
+      statistics.endIsolatedWork();
+    }
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2017 The Store API Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package be.bulck.example.store.api.db;
+
+import be.bulck.example.store.api.util.TextNormalizer;
+import liquibase.change.custom.CustomTaskChange;
+import liquibase.database.Database;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.CustomChangeException;
+import liquibase.exception.DatabaseException;
+import liquibase.exception.SetupException;
+import liquibase.exception.ValidationErrors;
+import liquibase.resource.ResourceAccessor;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * The Liquibase change filling the normalized names of existing products (accent folding can not be done in SQL).
+ *
+ * @author Fabien Vanden Bulck
+ */
+public class ProductNameNormalizationChange implements CustomTaskChange {
+  /** The number of updates sent per JDBC batch. */
+  private static final int BATCH_SIZE = 500;
+
+  /** The number of products updated. */
+  private int updateCount;
+
+  @Override
+  public void execute(Database database) throws CustomChangeException {
+    JdbcConnection connection = (JdbcConnection) database.getConnection();
+
+    try (Statement selectStatement = connection.createStatement();
+         ResultSet products = selectStatement.executeQuery("SELECT product_id, name FROM product");
+         PreparedStatement updateStatement =
+             connection.prepareStatement("UPDATE product SET normalized_name = ? WHERE product_id = ?")) {
+      while (products.next()) {
+        updateStatement.setString(1, TextNormalizer.normalize(products.getString("name")));
+        updateStatement.setLong(2, products.getLong("product_id"));
+        updateStatement.addBatch();
+
+        if (++updateCount % BATCH_SIZE == 0) {
+          updateStatement.executeBatch();
+        }
+      }
+
+      updateStatement.executeBatch();
+    } catch (DatabaseException | SQLException exception) {
+      throw new CustomChangeException("Unable to normalize the names of products", exception);
+    }
+  }
+
+  @Override
+  public String getConfirmationMessage() {
+    return "Names of " + updateCount + " products have been normalized";
+  }
+
+  @Override
+  public void setUp() throws SetupException {}
+
+  @Override
+  public void setFileOpener(ResourceAccessor resourceAccessor) {}
+
+  @Override
+  public ValidationErrors validate(Database database) {
+    return new ValidationErrors();
+  }
+}
@@ -17,9 +17,14 @@
 
 package be.bulck.example.store.api.domain;
 
+import be.bulck.example.store.api.util.TextNormalizer;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+
 import javax.persistence.*;
 import java.io.Serializable;
 import java.math.BigDecimal;
+import java.util.Date;
 
 /**
  * The entity class representing a product.
@@ -27,20 +32,47 @@ import java.math.BigDecimal;
  * @author Fabien Vanden Bulck
  */
 @Entity
-@Table(name = "product")
+@Table(
+    name = "product",
+    uniqueConstraints = @UniqueConstraint(name = Product.NAME_UNIQUE_CONSTRAINT, columnNames = "name"),
+    indexes = {
+        @Index(name = "IDX_PRODUCT_UPDATED_AT", columnList = "updated_at"),
+        @Index(name = "IDX_PRODUCT_NORMALIZED_NAME", columnList = "normalized_name"),
+        @Index(name = "IDX_PRODUCT_PRICE", columnList = "price")
+    }
+)
 public class Product implements Serializable, Comparable<Product> {
   private static final long serialVersionUID = 1L;
 
+  /** The name of unique constraint on the name of products. */
+  public static final String NAME_UNIQUE_CONSTRAINT = "UC_PRODUCTNAME_COL";
+
   /** The identifier of product. */
   @Id
-  @GeneratedValue(strategy = GenerationType.AUTO)
+  @GeneratedValue(generator = "product_id_generator")
+  @GenericGenerator(
+      name = "product_id_generator",
+      strategy = "be.bulck.example.store.api.db.PooledTableGenerator",
+      parameters = {
+          @Parameter(name = "table_name", value = "id_generator"),
+          @Parameter(name = "segment_column_name", value = "name"),
+          @Parameter(name = "value_column_name", value = "next_value"),
+          @Parameter(name = "segment_value", value = "product"),
+          @Parameter(name = "increment_size", value = "50"),
+          @Parameter(name = "optimizer", value = "pooled-lo")
+      }
+  )
   @Column(name =" product_id", updatable = false)
   private Long id;
 
   /** The name of product. */
-  @Column(name = "name", unique = true, nullable = false)
+  @Column(name = "name", nullable = false)
   private String name;
 
+  /** The normalized name of product (lower-cased and without accents, used for lookups). */
+  @Column(name = "normalized_name", nullable = false)
+  private String normalizedName;
+
   /** The price of product. */
   @Column(name = "price", nullable = false, scale = 2)
   private BigDecimal price;
@@ -49,6 +81,16 @@ public class Product implements Serializable, Comparable<Product> {
   @Column(name = "description", columnDefinition = "TEXT")
   private String description;
 
+  /** The version of product (incremented on each update). */
+  @Version
+  @Column(name = "version", nullable = false)
+  private Long version;
+
+  /** The date of last update of product. */
+  @Temporal(TemporalType.TIMESTAMP)
+  @Column(name = "updated_at", nullable = false)
+  private Date updatedAt;
+
   /**
    * Constructs an instance of product.
    */
@@ -88,6 +130,7 @@ public class Product implements Serializable, Comparable<Product> {
    */
   public void setName(String name) {
     this.name = name;
+    this.normalizedName = TextNormalizer.normalize(name);
   }
 
   /**
@@ -126,6 +169,52 @@ public class Product implements Serializable, Comparable<Product> {
     this.description = description;
   }
 
+  /**
+   * Gets the version of product.
+   *
+   * @return the version of product
+   */
+  public Long getVersion() {
+    return version;
+  }
+
+  /**
+   * Sets the version of product.
+   *
+   * @param version the new version of product
+   */
+  public void setVersion(Long version) {
+    this.version = version;
+  }
+
+  /**
+   * Gets the date of last update of product.
+   *
+   * @return the date of last update of product
+   */
+  public Date getUpdatedAt() {
+    return updatedAt;
+  }
+
+  /**
+   * Sets the date of last update of product.
+   *
+   * @param updatedAt the new date of last update of product
+   */
+  public void setUpdatedAt(Date updatedAt) {
+    this.updatedAt = updatedAt;
+  }
+
+  /**
+   * Updates the normalized name and the date of last update of product before it is saved.
+   */
+  @PrePersist
+  @PreUpdate
+  protected void onSave() {
+    normalizedName = TextNormalizer.normalize(name);
+    updatedAt = new Date();
+  }
+
   @Override
   public String toString() {
     return getName();
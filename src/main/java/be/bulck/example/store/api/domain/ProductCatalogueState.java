@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2017 The Store API Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package be.bulck.example.store.api.domain;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * The class representing the state of product catalogue, which changes each time a product is created, updated or
+ * deleted. It is computed by an aggregate query only using indexes (no product is loaded).
+ *
+ * @author Fabien Vanden Bulck
+ */
+public class ProductCatalogueState implements Serializable {
+  private static final long serialVersionUID = 1L;
+
+  /** The number of products. */
+  private final long count;
+
+  /** The highest identifier of products. */
+  private final long maxId;
+
+  /** The date of last update of products. */
+  private final Date lastUpdate;
+
+  /**
+   * Constructs an instance of product catalogue state.
+   *
+   * @param count the number of products
+   * @param maxId the highest identifier of products (null if there is no product)
+   * @param lastUpdate the date of last update of products (null if there is no product)
+   */
+  public ProductCatalogueState(Long count, Long maxId, Date lastUpdate) {
+    this.count = count != null ? count : 0;
+    this.maxId = maxId != null ? maxId : 0;
+    this.lastUpdate = lastUpdate;
+  }
+
+  /**
+   * Gets the number of products.
+   *
+   * @return the number of products
+   */
+  public long getCount() {
+    return count;
+  }
+
+  /**
+   * Gets the highest identifier of products.
+   *
+   * @return the highest identifier of products (0 if there is no product)
+   */
+  public long getMaxId() {
+    return maxId;
+  }
+
+  /**
+   * Gets the date of last update of products.
+   *
+   * @return the date of last update of products (null if there is no product)
+   */
+  public Date getLastUpdate() {
+    return lastUpdate;
+  }
+
+  @Override
+  public String toString() {
+    return Long.toHexString(count) + "-" + Long.toHexString(maxId) + "-" +
+        Long.toHexString(lastUpdate != null ? lastUpdate.getTime() : 0);
+  }
+}
@@ -18,6 +18,8 @@
 package be.bulck.example.store.api.domain.security;
 
 import org.codehaus.jackson.annotate.JsonIgnore;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 import java.io.Serializable;
@@ -39,7 +41,19 @@ public class Permission implements Serializable, Comparable<Permission>, Authori
 
   /** The identifier of permission. */
   @Id
-  @GeneratedValue(strategy = GenerationType.AUTO)
+  @GeneratedValue(generator = "permission_id_generator")
+  @GenericGenerator(
+      name = "permission_id_generator",
+      strategy = "be.bulck.example.store.api.db.PooledTableGenerator",
+      parameters = {
+          @Parameter(name = "table_name", value = "id_generator"),
+          @Parameter(name = "segment_column_name", value = "name"),
+          @Parameter(name = "value_column_name", value = "next_value"),
+          @Parameter(name = "segment_value", value = "permission"),
+          @Parameter(name = "increment_size", value = "50"),
+          @Parameter(name = "optimizer", value = "pooled-lo")
+      }
+  )
   @Column(name = "permission_id", unique = false)
   private Long id;
 
@@ -18,6 +18,8 @@
 package be.bulck.example.store.api.domain.security;
 
 import org.codehaus.jackson.annotate.JsonIgnore;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 import java.io.Serializable;
@@ -39,7 +41,19 @@ public class Role implements Serializable, Comparable<Role>, Authority {
 
   /** The identifier of role. */
   @Id
-  @GeneratedValue(strategy = GenerationType.AUTO)
+  @GeneratedValue(generator = "role_id_generator")
+  @GenericGenerator(
+      name = "role_id_generator",
+      strategy = "be.bulck.example.store.api.db.PooledTableGenerator",
+      parameters = {
+          @Parameter(name = "table_name", value = "id_generator"),
+          @Parameter(name = "segment_column_name", value = "name"),
+          @Parameter(name = "value_column_name", value = "next_value"),
+          @Parameter(name = "segment_value", value = "role"),
+          @Parameter(name = "increment_size", value = "50"),
+          @Parameter(name = "optimizer", value = "pooled-lo")
+      }
+  )
   @Column(name = "role_id", updatable = false)
   private Long id;
 
@@ -61,7 +75,7 @@ public class Role implements Serializable, Comparable<Role>, Authority {
   private Set<User> users;
 
   /** The permissions of role. */
-  @ManyToMany(fetch = FetchType.EAGER)
+  @ManyToMany(fetch = FetchType.LAZY)
   @JoinTable(
       name = "role_permission",
       joinColumns = @JoinColumn(name = "role_id", referencedColumnName = "role_id"),
@@ -69,6 +83,9 @@ public class Role implements Serializable, Comparable<Role>, Authority {
   )
   private Set<Permission> permissions;
 
+  /** The version of permissions, incremented each time permissions are changed (used to invalidate authorities). */
+  private transient int permissionsVersion;
+
   /**
    * Constructs an instance of role.
    */
@@ -183,6 +200,7 @@ public class Role implements Serializable, Comparable<Role>, Authority {
    */
   public void setPermissions(Set<Permission> permissions) {
     this.permissions = permissions;
+    permissionsVersion++;
   }
 
   /**
@@ -192,6 +210,7 @@ public class Role implements Serializable, Comparable<Role>, Authority {
    */
   public void addPermission(Permission permission) {
     permissions.add(permission);
+    permissionsVersion++;
   }
 
   /**
@@ -201,6 +220,16 @@ public class Role implements Serializable, Comparable<Role>, Authority {
    */
   public void removePermission(Permission permission) {
     permissions.remove(permission);
+    permissionsVersion++;
+  }
+
+  /**
+   * Gets the version of permissions, which changes each time permissions are set, added or removed.
+   *
+   * @return the version of permissions
+   */
+  int permissionsVersion() {
+    return permissionsVersion;
   }
 
   @Override
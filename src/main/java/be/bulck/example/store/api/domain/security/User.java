@@ -17,13 +17,18 @@
 
 package be.bulck.example.store.api.domain.security;
 
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import javax.persistence.*;
 import java.io.Serializable;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Set;
 
 /**
@@ -38,7 +43,19 @@ public class User implements Serializable, Comparable<User>, UserDetails {
 
   /** The identifier of user. */
   @Id
-  @GeneratedValue(strategy = GenerationType.AUTO)
+  @GeneratedValue(generator = "user_id_generator")
+  @GenericGenerator(
+      name = "user_id_generator",
+      strategy = "be.bulck.example.store.api.db.PooledTableGenerator",
+      parameters = {
+          @Parameter(name = "table_name", value = "id_generator"),
+          @Parameter(name = "segment_column_name", value = "name"),
+          @Parameter(name = "value_column_name", value = "next_value"),
+          @Parameter(name = "segment_value", value = "user"),
+          @Parameter(name = "increment_size", value = "50"),
+          @Parameter(name = "optimizer", value = "pooled-lo")
+      }
+  )
   @Column(name = "user_id", updatable = false)
   private Long id;
 
@@ -67,7 +84,7 @@ public class User implements Serializable, Comparable<User>, UserDetails {
   private boolean enabled;
 
   /** The roles of user. */
-  @ManyToMany(fetch = FetchType.EAGER)
+  @ManyToMany(fetch = FetchType.LAZY)
   @JoinTable(
       name = "user_role",
       joinColumns = @JoinColumn(name = "user_id", referencedColumnName = "user_id"),
@@ -75,6 +92,9 @@ public class User implements Serializable, Comparable<User>, UserDetails {
   )
   private Set<Role> roles;
 
+  /** The authorities of user (computed once from roles and their permissions, then reused). */
+  private transient volatile Authorities authorities;
+
   /**
    * Constructs an instance of user.
    */
@@ -234,6 +254,7 @@ public class User implements Serializable, Comparable<User>, UserDetails {
    */
   public void setRoles(Set<Role> roles) {
     this.roles = roles;
+    authorities = null;
   }
 
   /**
@@ -243,6 +264,7 @@ public class User implements Serializable, Comparable<User>, UserDetails {
    */
   public void addRole(Role role) {
     roles.add(role);
+    authorities = null;
   }
 
   /**
@@ -252,6 +274,7 @@ public class User implements Serializable, Comparable<User>, UserDetails {
    */
   public void removeRole(Role role) {
     roles.remove(role);
+    authorities = null;
   }
 
   @Override
@@ -269,16 +292,45 @@ public class User implements Serializable, Comparable<User>, UserDetails {
     return true;
   }
 
+  /**
+   * Gets the authorities of user: its roles and their permissions (guaranteed without duplicates).
+   *
+   * Authorities are computed once and reused until roles (or permissions of roles) are changed.
+   *
+   * @return an unmodifiable collection containing the authorities of user
+   */
   @Override
   public Collection<? extends GrantedAuthority> getAuthorities() {
-    Set<Authority> authorities = new HashSet<>();
+    Authorities currentAuthorities = authorities;
+    int version = getRolesVersion();
+
+    if (currentAuthorities == null || currentAuthorities.version != version) {
+      currentAuthorities = new Authorities(version, computeAuthorities());
+      authorities = currentAuthorities;
+    }
+
+    return currentAuthorities.values;
+  }
+
+  private int getRolesVersion() {
+    int version = 0;
 
-    roles.stream().forEach(role -> {
-        authorities.add(role);
-        role.getPermissions().stream().forEach(permission -> authorities.add(permission));
-    });
+    for (Role role : roles) {
+      version += role.permissionsVersion();
+    }
 
-    return authorities;
+    return version;
+  }
+
+  private Collection<Authority> computeAuthorities() {
+    Set<Authority> distinctAuthorities = new LinkedHashSet<>();
+
+    for (Role role : roles) {
+      distinctAuthorities.add(role);
+      distinctAuthorities.addAll(role.getPermissions());
+    }
+
+    return Collections.unmodifiableList(Arrays.asList(distinctAuthorities.toArray(new Authority[0])));
   }
 
   @Override
@@ -318,4 +370,20 @@ public class User implements Serializable, Comparable<User>, UserDetails {
   public int compareTo(User o) {
     return getFullName().compareTo(o.getFullName());
   }
+
+  /**
+   * The authorities of user computed for a version of roles.
+   */
+  private static final class Authorities {
+    /** The version of roles (sum of permissions versions) the authorities have been computed for. */
+    private final int version;
+
+    /** The authorities. */
+    private final Collection<Authority> values;
+
+    private Authorities(int version, Collection<Authority> values) {
+      this.version = version;
+      this.values = values;
+    }
+  }
 }
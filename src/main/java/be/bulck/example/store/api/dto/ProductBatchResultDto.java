@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2017 The Store API Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package be.bulck.example.store.api.dto;
+
+import java.io.Serializable;
+
+/**
+ * The Data Transfer Object (DTO) for the result of a Product entity processed in batch.
+ *
+ * @author Fabien Vanden Bulck
+ */
+public class ProductBatchResultDto implements Serializable {
+  private static final long serialVersionUID = 1L;
+
+  /** The index of product in batch. */
+  private int index;
+
+  /** The HTTP status of result. */
+  private int status;
+
+  /** The product processed (null if processing failed). */
+  private ProductDto product;
+
+  /** The error message (null if processing succeeded). */
+  private String message;
+
+  /**
+   * Constructs an instance of product batch result.
+   */
+  public ProductBatchResultDto() {}
+
+  /**
+   * Constructs an instance of product batch result.
+   *
+   * @param index the index of product in batch
+   * @param status the HTTP status of result
+   * @param product the product processed
+   * @param message the error message
+   */
+  public ProductBatchResultDto(int index, int status, ProductDto product, String message) {
+    this.index = index;
+    this.status = status;
+    this.product = product;
+    this.message = message;
+  }
+
+  public int getIndex() {
+    return index;
+  }
+
+  public void setIndex(int index) {
+    this.index = index;
+  }
+
+  public int getStatus() {
+    return status;
+  }
+
+  public void setStatus(int status) {
+    this.status = status;
+  }
+
+  public ProductDto getProduct() {
+    return product;
+  }
+
+  public void setProduct(ProductDto product) {
+    this.product = product;
+  }
+
+  public String getMessage() {
+    return message;
+  }
+
+  public void setMessage(String message) {
+    this.message = message;
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2017 The Store API Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package be.bulck.example.store.api.dto;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * The Data Transfer Object (DTO) for a numbered page of Product entities (filtered and sorted pagination).
+ *
+ * @author Fabien Vanden Bulck
+ */
+public class ProductNumberedPageDto implements Serializable {
+  private static final long serialVersionUID = 1L;
+
+  /** The products of page. */
+  private Collection<ProductDto> products;
+
+  /** The number of page (starting from 0). */
+  private int page;
+
+  /** The size of pages. */
+  private int size;
+
+  /** The total number of products matching. */
+  private long totalElements;
+
+  /** The total number of pages. */
+  private int totalPages;
+
+  /**
+   * Constructs an instance of numbered product page.
+   */
+  public ProductNumberedPageDto() {
+    products = new ArrayList<>();
+  }
+
+  /**
+   * Constructs an instance of numbered product page.
+   *
+   * @param products the products of page
+   * @param page the number of page
+   * @param size the size of pages
+   * @param totalElements the total number of products matching
+   * @param totalPages the total number of pages
+   */
+  public ProductNumberedPageDto(Collection<ProductDto> products, int page, int size, long totalElements,
+                                int totalPages) {
+    this.products = products;
+    this.page = page;
+    this.size = size;
+    this.totalElements = totalElements;
+    this.totalPages = totalPages;
+  }
+
+  public Collection<ProductDto> getProducts() {
+    return products;
+  }
+
+  public void setProducts(Collection<ProductDto> products) {
+    this.products = products;
+  }
+
+  public int getPage() {
+    return page;
+  }
+
+  public void setPage(int page) {
+    this.page = page;
+  }
+
+  public int getSize() {
+    return size;
+  }
+
+  public void setSize(int size) {
+    this.size = size;
+  }
+
+  public long getTotalElements() {
+    return totalElements;
+  }
+
+  public void setTotalElements(long totalElements) {
+    this.totalElements = totalElements;
+  }
+
+  public int getTotalPages() {
+    return totalPages;
+  }
+
+  public void setTotalPages(int totalPages) {
+    this.totalPages = totalPages;
+  }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2017 The Store API Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package be.bulck.example.store.api.dto;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * The Data Transfer Object (DTO) for a page of Product entities (cursor pagination).
+ *
+ * @author Fabien Vanden Bulck
+ */
+public class ProductPageDto implements Serializable {
+  private static final long serialVersionUID = 1L;
+
+  /** The products of page. */
+  private Collection<ProductDto> products;
+
+  /** The opaque cursor to request the next page (null if it is the last page). */
+  private String next;
+
+  /**
+   * Constructs an instance of product page.
+   */
+  public ProductPageDto() {
+    products = new ArrayList<>();
+  }
+
+  /**
+   * Constructs an instance of product page.
+   *
+   * @param products the products of page
+   * @param next the cursor to request the next page
+   */
+  public ProductPageDto(Collection<ProductDto> products, String next) {
+    this.products = products;
+    this.next = next;
+  }
+
+  public Collection<ProductDto> getProducts() {
+    return products;
+  }
+
+  public void setProducts(Collection<ProductDto> products) {
+    this.products = products;
+  }
+
+  public String getNext() {
+    return next;
+  }
+
+  public void setNext(String next) {
+    this.next = next;
+  }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2017 The Store API Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package be.bulck.example.store.api.exception;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The logger of client errors (4xx responses).
+ *
+ * Client errors are counted by status but sampled when logged: at most one error per status and per interval
+ * ("logging.client-errors.sample-interval" property, in seconds) is logged, along with the number of errors of the same
+ * status which have not been logged since the previous one.
+ *
+ * @author Fabien Vanden Bulck
+ */
+@Component
+public class ClientErrorLogger {
+  /** The logger. */
+  private static final Logger LOGGER = LoggerFactory.getLogger(ClientErrorLogger.class);
+
+  @Value("${logging.client-errors.sample-interval:10}")
+  private long sampleInterval;
+
+  /** The interval between two errors logged of a same status (in nanoseconds). */
+  private long sampleIntervalNanos;
+
+  /** The samplers of client errors by status. */
+  private final ConcurrentMap<Integer, Sampler> samplers = new ConcurrentHashMap<>();
+
+  @PostConstruct
+  public void init() {
+    sampleIntervalNanos = TimeUnit.SECONDS.toNanos(sampleInterval);
+  }
+
+  /**
+   * Counts a client error and logs it if no error of the same status has been logged during the sample interval.
+   *
+   * @param response the response of client error
+   */
+  public void log(ResourceExceptionResponse response) {
+    Sampler sampler = samplers.computeIfAbsent(response.getStatus().value(), status -> new Sampler());
+    sampler.count.increment();
+
+    if (!LOGGER.isInfoEnabled()) {
+      return;
+    }
+
+    long now = System.nanoTime();
+    long next = sampler.nextLogNanos.get();
+
+    if (now - next >= 0 && sampler.nextLogNanos.compareAndSet(next, now + sampleIntervalNanos)) {
+      long suppressed = sampler.suppressed.sumThenReset();
+
+      if (suppressed == 0) {
+        LOGGER.info("{}", response);
+      } else {
+        LOGGER.info("{} ({} similar errors not logged since the previous one)", response, suppressed);
+      }
+    } else {
+      sampler.suppressed.increment();
+    }
+  }
+
+  /**
+   * Gets the number of client errors by status.
+   *
+   * @return a map which contains the number of client errors by status
+   */
+  public Map<Integer, Long> getCounts() {
+    Map<Integer, Long> counts = new TreeMap<>();
+    samplers.forEach((status, sampler) -> counts.put(status, sampler.count.sum()));
+
+    return Collections.unmodifiableMap(counts);
+  }
+
+  /**
+   * The sampler of client errors of a status.
+   */
+  private static final class Sampler {
+    private final LongAdder count = new LongAdder();
+
+    private final LongAdder suppressed = new LongAdder();
+
+    private final AtomicLong nextLogNanos = new AtomicLong(System.nanoTime());
+  }
+}
@@ -22,7 +22,7 @@ package be.bulck.example.store.api.exception;
  *
  * @author Fabien Vanden Bulck
  */
-public class ResourceConflictException extends RuntimeException {
+public class ResourceConflictException extends ResourceException {
   /**
    * Constructs an instance of resource conflict exception.
    *
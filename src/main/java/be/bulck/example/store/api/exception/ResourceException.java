@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) 2017 The Store API Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package be.bulck.example.store.api.exception;
+
+/**
+ * The base class of exceptions thrown for client errors on resources (translated into responses by
+ * {@link ResourceExceptionHandler}).
+ *
+ * These exceptions are routine control flow (missing products, duplicate names, invalid parameters), so they neither
+ * fill their stack trace nor record suppressed exceptions: capturing the deep filter and handler stack would be the
+ * main cost of an error response. The cause, if any, keeps its own stack trace.
+ *
+ * @author Fabien Vanden Bulck
+ */
+public abstract class ResourceException extends RuntimeException {
+  /**
+   * Constructs an instance of resource exception.
+   *
+   * @param message the message
+   */
+  protected ResourceException(String message) {
+    this(message, null);
+  }
+
+  /**
+   * Constructs an instance of resource exception.
+   *
+   * @param message the message
+   * @param cause the cause
+   */
+  protected ResourceException(String message, Throwable cause) {
+    super(message, cause, false, false);
+  }
+}
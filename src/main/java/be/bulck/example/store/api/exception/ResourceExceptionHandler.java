@@ -17,8 +17,7 @@
 
 package be.bulck.example.store.api.exception;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
@@ -33,12 +32,14 @@ import java.util.stream.Collectors;
 /**
  * The resource exception handler.
  *
+ * Client errors are logged by the {@link ClientErrorLogger} (sampled).
+ *
  * @author Fabien Vanden Bulck
  */
 @RestControllerAdvice
 public class ResourceExceptionHandler {
-  /** The logger. */
-  private static final Logger LOGGER = LoggerFactory.getLogger(ResourceExceptionHandler.class);
+  @Autowired
+  private ClientErrorLogger clientErrorLogger;
 
   @ExceptionHandler(ResourceNotFoundException.class)
   public ResponseEntity<ResourceExceptionResponse> resourceNotFound(ResourceNotFoundException exception) {
@@ -48,7 +49,7 @@ public class ResourceExceptionHandler {
 
     ResourceExceptionResponse response = new ResourceExceptionResponse(ERROR_STATUS, ERROR_CODE, errorMessage);
 
-    LOGGER.info(response.toString());
+    clientErrorLogger.log(response);
     return new ResponseEntity<ResourceExceptionResponse>(response, ERROR_STATUS);
   }
 
@@ -60,7 +61,19 @@ public class ResourceExceptionHandler {
 
     ResourceExceptionResponse response = new ResourceExceptionResponse(ERROR_STATUS, ERROR_CODE, errorMessage);
 
-    LOGGER.info(response.toString());
+    clientErrorLogger.log(response);
+    return new ResponseEntity<ResourceExceptionResponse>(response, ERROR_STATUS);
+  }
+
+  @ExceptionHandler(ResourceParameterException.class)
+  public ResponseEntity<ResourceExceptionResponse> resourceParameterInvalid(ResourceParameterException exception) {
+    final int ERROR_CODE = 5;
+    final HttpStatus ERROR_STATUS = HttpStatus.BAD_REQUEST;
+    String errorMessage = exception.getMessage();
+
+    ResourceExceptionResponse response = new ResourceExceptionResponse(ERROR_STATUS, ERROR_CODE, errorMessage);
+
+    clientErrorLogger.log(response);
     return new ResponseEntity<ResourceExceptionResponse>(response, ERROR_STATUS);
   }
 
@@ -72,7 +85,7 @@ public class ResourceExceptionHandler {
 
     ResourceExceptionResponse response = new ResourceExceptionResponse(ERROR_STATUS, ERROR_CODE, errorMessage);
 
-    LOGGER.info(response.toString());
+    clientErrorLogger.log(response);
     return new ResponseEntity<ResourceExceptionResponse>(response, ERROR_STATUS);
   }
 
@@ -94,7 +107,7 @@ public class ResourceExceptionHandler {
         bindingResult.getAllErrors().stream().map(error -> error.getDefaultMessage()).collect(Collectors.toList())
     );
 
-    LOGGER.info(response.toString());
+    clientErrorLogger.log(response);
     return new ResponseEntity<ResourceExceptionResponse>(response, ERROR_STATUS);
   }
 }
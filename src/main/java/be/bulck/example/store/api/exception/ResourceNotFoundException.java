@@ -22,7 +22,7 @@ package be.bulck.example.store.api.exception;
  *
  * @author Fabien Vanden Bulck
  */
-public class ResourceNotFoundException extends RuntimeException {
+public class ResourceNotFoundException extends ResourceException {
   /**
    * Constructs an instance of resource not found exception.
    *
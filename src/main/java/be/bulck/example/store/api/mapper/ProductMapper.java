@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2017 The Store API Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package be.bulck.example.store.api.mapper;
+
+import be.bulck.example.store.api.domain.Product;
+import be.bulck.example.store.api.dto.ProductBatchUpdateDto;
+import be.bulck.example.store.api.dto.ProductCreationDto;
+import be.bulck.example.store.api.dto.ProductDto;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The mapper between product entity and its Data Transfer Objects (DTO).
+ *
+ * Properties are copied explicitly (no reflection), which keeps mapping off the request hot path.
+ *
+ * @author Fabien Vanden Bulck
+ */
+@Component
+public class ProductMapper {
+  /**
+   * Maps a product to its DTO.
+   *
+   * @param product the product to map
+   *
+   * @return the DTO of product
+   */
+  public ProductDto toDto(Product product) {
+    ProductDto productDto = new ProductDto();
+    productDto.setId(product.getId());
+    productDto.setName(product.getName());
+    productDto.setPrice(product.getPrice());
+    productDto.setDescription(product.getDescription());
+    productDto.setVersion(product.getVersion());
+    productDto.setUpdatedAt(product.getUpdatedAt());
+
+    return productDto;
+  }
+
+  /**
+   * Maps products to their DTOs.
+   *
+   * @param products the products to map
+   *
+   * @return a list containing the DTOs of products (in iteration order of products)
+   */
+  public List<ProductDto> toDtos(Collection<Product> products) {
+    List<ProductDto> productDtos = new ArrayList<>(products.size());
+
+    for (Product product : products) {
+      productDtos.add(toDto(product));
+    }
+
+    return productDtos;
+  }
+
+  /**
+   * Maps a creation (or update) DTO to a product.
+   *
+   * @param productDto the DTO to map
+   *
+   * @return the product (without identifier)
+   */
+  public Product toEntity(ProductCreationDto productDto) {
+    Product product = new Product();
+    product.setName(productDto.getName());
+    product.setPrice(productDto.getPrice());
+    product.setDescription(productDto.getDescription());
+
+    return product;
+  }
+
+  /**
+   * Maps a batch update DTO to a product.
+   *
+   * @param productDto the DTO to map
+   *
+   * @return the product (with identifier)
+   */
+  public Product toEntity(ProductBatchUpdateDto productDto) {
+    Product product = toEntity((ProductCreationDto) productDto);
+    product.setId(productDto.getId());
+
+    return product;
+  }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright (C) 2017 The Store API Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package be.bulck.example.store.api.metrics;
+
+import be.bulck.example.store.api.datasource.RequestStatistics;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The metrics of an endpoint: latency distribution, request counts by status and error count.
+ *
+ * Latencies are recorded (in microseconds) by a wait-free HdrHistogram recorder. The distribution reported covers the
+ * current window and the previous one, so that quantiles reflect recent requests rather than the whole uptime.
+ *
+ * @author Fabien Vanden Bulck
+ */
+public class EndpointMetrics {
+  /** The number of significant digits kept by latency histograms. */
+  private static final int SIGNIFICANT_DIGITS = 2;
+
+  /** The HTTP method of endpoint. */
+  private final String method;
+
+  /** The URI pattern of endpoint. */
+  private final String uri;
+
+  /** The duration (in nanoseconds) of latency windows. */
+  private final long windowNanos;
+
+  private final Recorder recorder = new Recorder(SIGNIFICANT_DIGITS);
+
+  private final LongAdder requestCount = new LongAdder();
+
+  private final LongAdder totalNanos = new LongAdder();
+
+  private final LongAdder errorCount = new LongAdder();
+
+  private final LongAdder statementCount = new LongAdder();
+
+  private final LongAdder statementNanos = new LongAdder();
+
+  private final LongAdder connectionWaitNanos = new LongAdder();
+
+  private final Map<Integer, LongAdder> requestCountsByStatus = new ConcurrentHashMap<>();
+
+  /** The histograms of windows (only accessed while holding the lock of this instance). */
+  private Histogram currentWindow = new Histogram(SIGNIFICANT_DIGITS);
+
+  private Histogram previousWindow = new Histogram(SIGNIFICANT_DIGITS);
+
+  private Histogram intervalHistogram;
+
+  private long currentWindowStart = System.nanoTime();
+
+  /**
+   * Constructs an instance of endpoint metrics.
+   *
+   * @param method the HTTP method of endpoint
+   * @param uri the URI pattern of endpoint
+   * @param windowNanos the duration (in nanoseconds) of latency windows
+   */
+  EndpointMetrics(String method, String uri, long windowNanos) {
+    this.method = method;
+    this.uri = uri;
+    this.windowNanos = windowNanos;
+  }
+
+  /**
+   * Records a request.
+   *
+   * @param durationNanos the duration (in nanoseconds) of request
+   * @param status the HTTP status of response
+   * @param error whether the request failed (server error or exception)
+   * @param statistics the database statistics of request (or null if they are not collected)
+   */
+  void record(long durationNanos, int status, boolean error, RequestStatistics statistics) {
+    recorder.recordValue(Math.max(TimeUnit.NANOSECONDS.toMicros(durationNanos), 0));
+    requestCount.increment();
+    totalNanos.add(durationNanos);
+    requestCountsByStatus.computeIfAbsent(status, key -> new LongAdder()).increment();
+
+    if (error) {
+      errorCount.increment();
+    }
+
+    if (statistics != null) {
+      statementCount.add(statistics.getStatementCount());
+      statementNanos.add(statistics.getStatementNanos());
+      connectionWaitNanos.add(statistics.getConnectionWaitNanos());
+    }
+  }
+
+  /**
+   * Gets the latency distribution (in microseconds) of the current and previous windows.
+   *
+   * @return a copy of the latency distribution
+   */
+  public synchronized Histogram getRecentLatencies() {
+    intervalHistogram = recorder.getIntervalHistogram(intervalHistogram);
+    currentWindow.add(intervalHistogram);
+
+    long now = System.nanoTime();
+    if (now - currentWindowStart >= windowNanos) {
+      Histogram expiredWindow = previousWindow;
+      previousWindow = currentWindow;
+      currentWindow = expiredWindow;
+      currentWindow.reset();
+      currentWindowStart = now;
+    }
+
+    Histogram recentLatencies = previousWindow.copy();
+    recentLatencies.add(currentWindow);
+
+    return recentLatencies;
+  }
+
+  public String getMethod() {
+    return method;
+  }
+
+  public String getUri() {
+    return uri;
+  }
+
+  public long getRequestCount() {
+    return requestCount.sum();
+  }
+
+  public long getTotalNanos() {
+    return totalNanos.sum();
+  }
+
+  public long getErrorCount() {
+    return errorCount.sum();
+  }
+
+  public long getStatementCount() {
+    return statementCount.sum();
+  }
+
+  public long getStatementNanos() {
+    return statementNanos.sum();
+  }
+
+  public long getConnectionWaitNanos() {
+    return connectionWaitNanos.sum();
+  }
+
+  /**
+   * Gets the request counts by HTTP status.
+   *
+   * @return an unmodifiable map containing the request counts by HTTP status
+   */
+  public Map<Integer, LongAdder> getRequestCountsByStatus() {
+    return Collections.unmodifiableMap(requestCountsByStatus);
+  }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2017 The Store API Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package be.bulck.example.store.api.metrics;
+
+import be.bulck.example.store.api.datasource.RequestStatistics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The registry of endpoint metrics.
+ *
+ * @author Fabien Vanden Bulck
+ */
+@Component
+public class MetricsRegistry {
+  /** The metrics by endpoint key (HTTP method and URI pattern). */
+  private final ConcurrentMap<String, EndpointMetrics> endpointMetrics = new ConcurrentHashMap<>();
+
+  @Value("${metrics.latency-window:60}")
+  private long latencyWindow;
+
+  /**
+   * Records a request.
+   *
+   * @param method the HTTP method of request
+   * @param uri the URI pattern matched by request
+   * @param durationNanos the duration (in nanoseconds) of request
+   * @param status the HTTP status of response
+   * @param error whether the request failed (server error or exception)
+   * @param statistics the database statistics of request (or null if they are not collected)
+   */
+  public void record(String method, String uri, long durationNanos, int status, boolean error,
+                     RequestStatistics statistics) {
+    String key = method + ' ' + uri;
+    EndpointMetrics metrics = endpointMetrics.get(key);
+
+    if (metrics == null) {
+      metrics = endpointMetrics.computeIfAbsent(key,
+          ignored -> new EndpointMetrics(method, uri, TimeUnit.SECONDS.toNanos(latencyWindow)));
+    }
+
+    metrics.record(durationNanos, status, error, statistics);
+  }
+
+  /**
+   * Gets the metrics of endpoints.
+   *
+   * @return a collection containing the metrics of endpoints, ordered by URI and method
+   */
+  public Collection<EndpointMetrics> getEndpointMetrics() {
+    List<EndpointMetrics> metrics = new ArrayList<>(endpointMetrics.values());
+    metrics.sort(Comparator.comparing(EndpointMetrics::getUri).thenComparing(EndpointMetrics::getMethod));
+
+    return metrics;
+  }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2017 The Store API Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package be.bulck.example.store.api.metrics;
+
+/**
+ * The writer of metrics in the Prometheus text exposition format (version 0.0.4).
+ *
+ * @author Fabien Vanden Bulck
+ */
+public class PrometheusTextWriter {
+  /** The content type of Prometheus text exposition format. */
+  public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+  private final StringBuilder builder = new StringBuilder(4096);
+
+  /**
+   * Writes the help and the type of a metric (once, before its samples).
+   *
+   * @param name the name of metric
+   * @param type the type of metric (counter, gauge or summary)
+   * @param help the description of metric
+   *
+   * @return this writer
+   */
+  public PrometheusTextWriter metric(String name, String type, String help) {
+    builder.append("# HELP ").append(name).append(' ').append(help).append('\n');
+    builder.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+
+    return this;
+  }
+
+  /**
+   * Writes a sample of metric.
+   *
+   * @param name the name of sample
+   * @param value the value of sample
+   * @param labels the names and values of labels, alternately
+   *
+   * @return this writer
+   */
+  public PrometheusTextWriter sample(String name, double value, String... labels) {
+    builder.append(name);
+
+    if (labels.length > 0) {
+      builder.append('{');
+
+      for (int i = 0; i + 1 < labels.length; i += 2) {
+        if (i > 0) {
+          builder.append(',');
+        }
+
+        builder.append(labels[i]).append("=\"");
+        appendEscaped(labels[i + 1]);
+        builder.append('"');
+      }
+
+      builder.append('}');
+    }
+
+    builder.append(' ').append(formatValue(value)).append('\n');
+
+    return this;
+  }
+
+  @Override
+  public String toString() {
+    return builder.toString();
+  }
+
+  private void appendEscaped(String labelValue) {
+    for (int i = 0; i < labelValue.length(); i++) {
+      char c = labelValue.charAt(i);
+
+      if (c == '\\' || c == '"') {
+        builder.append('\\').append(c);
+      } else if (c == '\n') {
+        builder.append("\\n");
+      } else {
+        builder.append(c);
+      }
+    }
+  }
+
+  private static String formatValue(double value) {
+    if (Double.isInfinite(value)) {
+      return value > 0 ? "+Inf" : "-Inf";
+    } else if (value == (long) value) {
+      return Long.toString((long) value);
+    }
+
+    return Double.toString(value);
+  }
+}
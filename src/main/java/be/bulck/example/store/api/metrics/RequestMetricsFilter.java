@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2017 The Store API Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package be.bulck.example.store.api.metrics;
+
+import be.bulck.example.store.api.datasource.RequestStatistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The filter recording the latency and the status of each request, by HTTP method and URI pattern.
+ *
+ * The URI pattern is the one matched by the handler (e.g. "/products/{id}"), so that the number of endpoints stays
+ * bounded; requests which do not reach a handler (unauthenticated, not found...) are recorded as "unmatched". For the
+ * same reason, non-standard HTTP methods (sent by any client) are recorded as "OTHER".
+ *
+ * The database statistics of request (statements, JDBC time, connection wait) are collected too and, in debug mode
+ * ("metrics.server-timing" property), returned in a Server-Timing header.
+ *
+ * @author Fabien Vanden Bulck
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class RequestMetricsFilter extends OncePerRequestFilter {
+  /** The URI recorded for requests which do not reach a handler. */
+  private static final String UNMATCHED_URI = "unmatched";
+
+  /** The method recorded for requests with a non-standard HTTP method. */
+  private static final String OTHER_METHOD = "OTHER";
+
+  /** The standard HTTP methods, recorded as is. */
+  private static final Set<String> STANDARD_METHODS = new HashSet<>(Arrays.asList(
+      "GET", "HEAD", "POST", "PUT", "PATCH", "DELETE", "OPTIONS", "TRACE"));
+
+  @Autowired
+  private MetricsRegistry metricsRegistry;
+
+  @Value("${metrics.server-timing:false}")
+  private boolean serverTimingEnabled;
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+      throws ServletException, IOException {
+    long start = System.nanoTime();
+    RequestStatistics statistics = RequestStatistics.begin();
+    ServerTimingResponseWrapper serverTimingResponse =
+        serverTimingEnabled ? new ServerTimingResponseWrapper(response, statistics, start) : null;
+    boolean failed = true;
+
+    try {
+      chain.doFilter(request, serverTimingResponse != null ? serverTimingResponse : response);
+      failed = false;
+
+      if (serverTimingResponse != null) {
+        serverTimingResponse.addServerTimingHeader();
+      }
+    } finally {
+      RequestStatistics.end();
+
+      if (isAsyncStarted(request)) {
+        request.getAsyncContext().addListener(new AsyncMetricsListener(start, statistics));
+      } else {
+        int status = failed ? HttpServletResponse.SC_INTERNAL_SERVER_ERROR : response.getStatus();
+        record(request, status, failed, start, statistics);
+      }
+    }
+  }
+
+  private void record(HttpServletRequest request, int status, boolean failed, long start,
+                      RequestStatistics statistics) {
+    Object uri = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+
+    String method = STANDARD_METHODS.contains(request.getMethod()) ? request.getMethod() : OTHER_METHOD;
+
+    metricsRegistry.record(method, uri != null ? uri.toString() : UNMATCHED_URI,
+        System.nanoTime() - start, status, failed || status >= 500, statistics);
+  }
+
+  /**
+   * The listener recording asynchronous requests (e.g. streaming exports) once they are completed.
+   */
+  private final class AsyncMetricsListener implements AsyncListener {
+    private final long start;
+
+    private final RequestStatistics statistics;
+
+    private boolean failed;
+
+    private AsyncMetricsListener(long start, RequestStatistics statistics) {
+      this.start = start;
+      this.statistics = statistics;
+    }
+
+    @Override
+    public void onComplete(AsyncEvent event) throws IOException {
+      HttpServletRequest request = (HttpServletRequest) event.getAsyncContext().getRequest();
+      HttpServletResponse response = (HttpServletResponse) event.getAsyncContext().getResponse();
+
+      record(request, response.getStatus(), failed, start, statistics);
+    }
+
+    @Override
+    public void onTimeout(AsyncEvent event) throws IOException {
+      failed = true;
+    }
+
+    @Override
+    public void onError(AsyncEvent event) throws IOException {
+      failed = true;
+    }
+
+    @Override
+    public void onStartAsync(AsyncEvent event) throws IOException {
+      event.getAsyncContext().addListener(this);
+    }
+  }
+}
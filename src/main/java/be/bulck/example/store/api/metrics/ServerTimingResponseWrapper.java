@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2017 The Store API Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package be.bulck.example.store.api.metrics;
+
+import be.bulck.example.store.api.datasource.RequestStatistics;
+import org.springframework.security.web.util.OnCommittedResponseWrapper;
+
+import javax.servlet.http.HttpServletResponse;
+import java.util.Locale;
+
+/**
+ * The response wrapper adding a Server-Timing header (database time, connection wait and total time so far) just
+ * before the response is committed.
+ *
+ * @author Fabien Vanden Bulck
+ */
+class ServerTimingResponseWrapper extends OnCommittedResponseWrapper {
+  private final RequestStatistics statistics;
+
+  private final long start;
+
+  private boolean headerAdded;
+
+  /**
+   * Constructs an instance of Server-Timing response wrapper.
+   *
+   * @param response the response to wrap
+   * @param statistics the database statistics of request
+   * @param start the time (System.nanoTime) at which the request started
+   */
+  ServerTimingResponseWrapper(HttpServletResponse response, RequestStatistics statistics, long start) {
+    super(response);
+    this.statistics = statistics;
+    this.start = start;
+  }
+
+  @Override
+  protected void onResponseCommitted() {
+    addServerTimingHeader();
+  }
+
+  /**
+   * Adds the Server-Timing header, unless it has already been added.
+   */
+  void addServerTimingHeader() {
+    if (headerAdded || isCommitted()) {
+      return;
+    }
+    headerAdded = true;
+
+    addHeader("Server-Timing", String.format(Locale.ROOT,
+        "db;dur=%.3f;desc=\"%d statements\", db-wait;dur=%.3f;desc=\"%d connections\", total;dur=%.3f",
+        statistics.getStatementNanos() / 1e6, statistics.getStatementCount(),
+        statistics.getConnectionWaitNanos() / 1e6, statistics.getConnectionCount(),
+        (System.nanoTime() - start) / 1e6));
+  }
+}
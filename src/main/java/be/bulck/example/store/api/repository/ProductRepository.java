@@ -18,15 +18,89 @@
 package be.bulck.example.store.api.repository;
 
 import be.bulck.example.store.api.domain.Product;
-import org.springframework.data.repository.CrudRepository;
+import be.bulck.example.store.api.domain.ProductCatalogueState;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.repository.query.Param;
+
+import javax.persistence.QueryHint;
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 /**
  * The repository for product entity.
  *
  * @author Fabien Vanden Bulck
  */
-public interface ProductRepository extends CrudRepository<Product, Long> {
+public interface ProductRepository extends PagingAndSortingRepository<Product, Long> {
   Product findByName(String name);
-  
-  void deleteAll();
+
+  List<Product> findByNameIn(Collection<String> names);
+
+  List<Product> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+  Page<Product> findByPriceBetween(BigDecimal minPrice, BigDecimal maxPrice, Pageable pageable);
+
+  Page<Product> findByPriceGreaterThanEqual(BigDecimal minPrice, Pageable pageable);
+
+  Page<Product> findByPriceLessThanEqual(BigDecimal maxPrice, Pageable pageable);
+
+  List<Product> findByNormalizedNameOrderByIdAsc(String normalizedName);
+
+  /**
+   * Finds the products whose normalized name matches a prefix pattern (a range scan on the normalized name index, as
+   * the pattern has no leading wildcard).
+   *
+   * @param pattern the normalized prefix followed by '%', with wildcards of prefix escaped by '!'
+   * @param pageable the page of products to return
+   *
+   * @return a list containing the products ordered by normalized name
+   */
+  @Query("SELECT p FROM Product p WHERE p.normalizedName LIKE :pattern ESCAPE '!' ORDER BY p.normalizedName, p.id")
+  List<Product> findByNormalizedNameLike(@Param("pattern") String pattern, Pageable pageable);
+
+  /**
+   * Streams all products through a forward-only cursor, fetched by blocks of 1000 rows (a server-side cursor on MySQL,
+   * see the "useCursorFetch" connection property). Must be called inside a transaction and the stream must be closed
+   * after use.
+   *
+   * @return a stream of all products ordered by identifier
+   */
+  @QueryHints({
+      @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+      @QueryHint(name = HINT_READONLY, value = "true")
+  })
+  @Query("SELECT p FROM Product p ORDER BY p.id")
+  Stream<Product> streamAll();
+
+  @Query("SELECT new be.bulck.example.store.api.domain.ProductCatalogueState(COUNT(p), MAX(p.id), MAX(p.updatedAt)) " +
+      "FROM Product p")
+  ProductCatalogueState findCatalogueState();
+
+  /**
+   * Saves a product and flushes it immediately, so that a constraint violation is raised by this call.
+   *
+   * @param product the product to save
+   *
+   * @return the product saved
+   */
+  Product saveAndFlush(Product product);
+
+  /**
+   * Deletes all products with a single statement (products are not loaded before being deleted).
+   *
+   * @return the number of products deleted
+   */
+  @Modifying
+  @Query("DELETE FROM Product p")
+  int deleteAllInBulk();
 }
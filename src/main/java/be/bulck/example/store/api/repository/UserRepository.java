@@ -18,7 +18,9 @@
 package be.bulck.example.store.api.repository;
 
 import be.bulck.example.store.api.domain.security.User;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 
 /**
  * The repository for user entity.
@@ -26,5 +28,14 @@ import org.springframework.data.repository.CrudRepository;
  * @author Fabien Vanden Bulck
  */
 public interface UserRepository extends CrudRepository<User, Long> {
-  User findOneByUsername(String username);
+  /**
+   * Finds an user by username, with its roles and their permissions loaded in a single query.
+   *
+   * @param username the username of user
+   *
+   * @return the user found (or null)
+   */
+  @Query("SELECT DISTINCT u FROM User u LEFT JOIN FETCH u.roles r LEFT JOIN FETCH r.permissions " +
+      "WHERE u.username = :username")
+  User findOneByUsername(@Param("username") String username);
 }
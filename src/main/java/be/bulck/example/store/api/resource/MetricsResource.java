@@ -0,0 +1,203 @@
+/*
+ * Copyright (C) 2017 The Store API Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package be.bulck.example.store.api.resource;
+
+import be.bulck.example.store.api.datasource.HikariPoolMetrics;
+import be.bulck.example.store.api.exception.ClientErrorLogger;
+import be.bulck.example.store.api.metrics.EndpointMetrics;
+import be.bulck.example.store.api.metrics.MetricsRegistry;
+import be.bulck.example.store.api.metrics.PrometheusTextWriter;
+import be.bulck.example.store.api.search.ProductSearchIndex;
+import be.bulck.example.store.api.security.oauth2.jwt.CachingResourceServerTokenServices;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.HdrHistogram.Histogram;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * The resource exposing the runtime metrics in the Prometheus text format: latency and requests of endpoints, caches,
+ * connection pools and product search index.
+ *
+ * Metrics are read from the networks allowed to scrape them or with the READ_METRICS permission (see
+ * OAuth2ResourceServerConfiguration).
+ *
+ * @author Fabien Vanden Bulck
+ */
+@RestController
+@RequestMapping("/metrics")
+public class MetricsResource {
+  /** The quantiles of latency reported. */
+  private static final double[] QUANTILES = {0.5, 0.99, 0.999};
+
+  /** The number of microseconds in a second. */
+  private static final double MICROS_PER_SECOND = TimeUnit.SECONDS.toMicros(1);
+
+  /** The number of nanoseconds in a second. */
+  private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+  @Autowired
+  private MetricsRegistry metricsRegistry;
+
+  @Autowired
+  private CacheManager cacheManager;
+
+  @Autowired
+  private CachingResourceServerTokenServices cachingTokenServices;
+
+  @Autowired
+  private HikariPoolMetrics hikariPoolMetrics;
+
+  @Autowired
+  private ProductSearchIndex productSearchIndex;
+
+  @Autowired
+  private ClientErrorLogger clientErrorLogger;
+
+  @RequestMapping(method = RequestMethod.GET)
+  public ResponseEntity<?> getMetrics() {
+    PrometheusTextWriter writer = new PrometheusTextWriter();
+
+    writeEndpointMetrics(writer);
+    writeCacheMetrics(writer);
+    writePoolMetrics(writer);
+
+    writer.metric("store_product_search_index_products", "gauge", "Number of products in search index")
+        .sample("store_product_search_index_products", productSearchIndex.size());
+
+    writer.metric("store_client_errors_total", "counter", "Number of client errors handled by status");
+    clientErrorLogger.getCounts().forEach((status, count) ->
+        writer.sample("store_client_errors_total", count, "status", status.toString()));
+
+    HttpHeaders headers = new HttpHeaders();
+    headers.set(HttpHeaders.CONTENT_TYPE, PrometheusTextWriter.CONTENT_TYPE);
+
+    return new ResponseEntity(writer.toString(), headers, HttpStatus.OK);
+  }
+
+  private void writeEndpointMetrics(PrometheusTextWriter writer) {
+    Collection<EndpointMetrics> endpointMetrics = metricsRegistry.getEndpointMetrics();
+
+    writer.metric("http_server_requests_seconds", "summary", "Latency of HTTP requests (quantiles of recent requests)");
+    for (EndpointMetrics metrics : endpointMetrics) {
+      Histogram latencies = metrics.getRecentLatencies();
+
+      for (double quantile : QUANTILES) {
+        writer.sample("http_server_requests_seconds",
+            latencies.getValueAtPercentile(quantile * 100) / MICROS_PER_SECOND,
+            "method", metrics.getMethod(), "uri", metrics.getUri(), "quantile", Double.toString(quantile));
+      }
+      writer.sample("http_server_requests_seconds_count", metrics.getRequestCount(),
+          "method", metrics.getMethod(), "uri", metrics.getUri());
+      writer.sample("http_server_requests_seconds_sum", metrics.getTotalNanos() / NANOS_PER_SECOND,
+          "method", metrics.getMethod(), "uri", metrics.getUri());
+    }
+
+    writer.metric("http_server_requests_total", "counter", "Number of HTTP requests by status");
+    for (EndpointMetrics metrics : endpointMetrics) {
+      metrics.getRequestCountsByStatus().forEach((status, count) ->
+          writer.sample("http_server_requests_total", count.sum(),
+              "method", metrics.getMethod(), "uri", metrics.getUri(), "status", status.toString()));
+    }
+
+    writer.metric("http_server_errors_total", "counter", "Number of HTTP requests failed (server errors)");
+    for (EndpointMetrics metrics : endpointMetrics) {
+      writer.sample("http_server_errors_total", metrics.getErrorCount(),
+          "method", metrics.getMethod(), "uri", metrics.getUri());
+    }
+
+    writer.metric("store_sql_statements_total", "counter", "Number of SQL statements executed by HTTP requests");
+    for (EndpointMetrics metrics : endpointMetrics) {
+      writer.sample("store_sql_statements_total", metrics.getStatementCount(),
+          "method", metrics.getMethod(), "uri", metrics.getUri());
+    }
+
+    writer.metric("store_sql_statements_seconds_total", "counter", "Time spent executing SQL statements by HTTP requests");
+    for (EndpointMetrics metrics : endpointMetrics) {
+      writer.sample("store_sql_statements_seconds_total", metrics.getStatementNanos() / NANOS_PER_SECOND,
+          "method", metrics.getMethod(), "uri", metrics.getUri());
+    }
+
+    writer.metric("store_sql_connection_wait_seconds_total", "counter",
+        "Time waited by HTTP requests to obtain database connections");
+    for (EndpointMetrics metrics : endpointMetrics) {
+      writer.sample("store_sql_connection_wait_seconds_total", metrics.getConnectionWaitNanos() / NANOS_PER_SECOND,
+          "method", metrics.getMethod(), "uri", metrics.getUri());
+    }
+  }
+
+  private void writeCacheMetrics(PrometheusTextWriter writer) {
+    writer.metric("store_cache_hits_total", "counter", "Number of cache hits");
+    forEachCacheStats((cache, stats) -> writer.sample("store_cache_hits_total", stats.hitCount(), "cache", cache));
+
+    writer.metric("store_cache_misses_total", "counter", "Number of cache misses");
+    forEachCacheStats((cache, stats) -> writer.sample("store_cache_misses_total", stats.missCount(), "cache", cache));
+
+    writer.metric("store_cache_evictions_total", "counter", "Number of cache evictions");
+    forEachCacheStats((cache, stats) ->
+        writer.sample("store_cache_evictions_total", stats.evictionCount(), "cache", cache));
+  }
+
+  // The cache of verified access tokens is reported with the application caches
+  private void forEachCacheStats(BiConsumer<String, CacheStats> consumer) {
+    for (String cacheName : cacheManager.getCacheNames()) {
+      Cache cache = cacheManager.getCache(cacheName);
+
+      if (cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache) {
+        consumer.accept(cacheName, ((com.github.benmanes.caffeine.cache.Cache<?, ?>) cache.getNativeCache()).stats());
+      }
+    }
+
+    consumer.accept("accessTokens", cachingTokenServices.getCacheStats());
+  }
+
+  private void writePoolMetrics(PrometheusTextWriter writer) {
+    Map<String, HikariPoolMetrics.PoolMetrics> poolMetrics = hikariPoolMetrics.getPoolMetrics();
+
+    writer.metric("store_datasource_connections", "gauge", "Number of connections by state");
+    poolMetrics.forEach((pool, metrics) -> {
+      writer.sample("store_datasource_connections", metrics.getActiveConnections(), "pool", pool, "state", "active");
+      writer.sample("store_datasource_connections", metrics.getIdleConnections(), "pool", pool, "state", "idle");
+    });
+
+    writer.metric("store_datasource_pending_threads", "gauge", "Number of threads waiting for a connection");
+    poolMetrics.forEach((pool, metrics) ->
+        writer.sample("store_datasource_pending_threads", metrics.getPendingThreads(), "pool", pool));
+
+    writer.metric("store_datasource_acquire_seconds", "summary", "Time waited to acquire a connection");
+    poolMetrics.forEach((pool, metrics) -> {
+      writer.sample("store_datasource_acquire_seconds_count", metrics.getAcquireCount(), "pool", pool);
+      writer.sample("store_datasource_acquire_seconds_sum", metrics.getAcquireNanos() / NANOS_PER_SECOND, "pool", pool);
+    });
+
+    writer.metric("store_datasource_acquire_timeouts_total", "counter", "Number of connection acquisition timeouts");
+    poolMetrics.forEach((pool, metrics) ->
+        writer.sample("store_datasource_acquire_timeouts_total", metrics.getTimeoutCount(), "pool", pool));
+  }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2017 The Store API Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package be.bulck.example.store.api.resource;
+
+import be.bulck.example.store.api.exception.ResourceParameterException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * The codec of opaque cursors used to paginate products by identifier.
+ *
+ * @author Fabien Vanden Bulck
+ */
+final class ProductCursor {
+  /** The prefix of decoded cursors. */
+  private static final String PREFIX = "product:";
+
+  private ProductCursor() {}
+
+  /**
+   * Encodes a product identifier into an opaque cursor.
+   *
+   * @param id the identifier of the last product returned
+   *
+   * @return the opaque cursor
+   */
+  static String encode(Long id) {
+    byte[] bytes = (PREFIX + id).getBytes(StandardCharsets.UTF_8);
+
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+  }
+
+  /**
+   * Decodes an opaque cursor into a product identifier.
+   *
+   * @param cursor the opaque cursor
+   *
+   * @return the identifier of the last product returned
+   *
+   * @throws ResourceParameterException if the cursor is malformed
+   */
+  static Long decode(String cursor) {
+    try {
+      String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+
+      if (decoded.startsWith(PREFIX)) {
+        return Long.valueOf(decoded.substring(PREFIX.length()));
+      }
+    } catch (IllegalArgumentException exception) {
+      throw new ResourceParameterException("Cursor '" + cursor + "' is malformed", exception);
+    }
+
+    throw new ResourceParameterException("Cursor '" + cursor + "' is malformed");
+  }
+}
@@ -18,54 +18,218 @@
 package be.bulck.example.store.api.resource;
 
 import be.bulck.example.store.api.domain.Product;
+import be.bulck.example.store.api.dto.ProductBatchResultDto;
+import be.bulck.example.store.api.dto.ProductBatchUpdateDto;
 import be.bulck.example.store.api.dto.ProductCreationDto;
 import be.bulck.example.store.api.dto.ProductDto;
+import be.bulck.example.store.api.dto.ProductNumberedPageDto;
+import be.bulck.example.store.api.dto.ProductPageDto;
 import be.bulck.example.store.api.dto.ProductUpdateDto;
+import be.bulck.example.store.api.exception.ResourceParameterException;
+import be.bulck.example.store.api.mapper.ProductMapper;
+import be.bulck.example.store.api.service.BatchResult;
 import be.bulck.example.store.api.service.ProductService;
-import org.modelmapper.ModelMapper;
-import org.modelmapper.TypeToken;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import com.fasterxml.jackson.dataformat.xml.ser.ToXmlGenerator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.xml.MappingJackson2XmlHttpMessageConverter;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.validation.ConstraintViolation;
 import javax.validation.Valid;
-import java.lang.reflect.Type;
+import javax.validation.Validator;
+import javax.xml.namespace.QName;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * The resource for product entity.
  *
+ * Reads are conditional: strong ETags identify a representation (the version of the products returned, the query and
+ * the media types accepted), so that unchanged products are answered with 304 without being serialized. The whole
+ * catalogue is checked against the catalogue state before products are loaded; pages are checked against the products
+ * of page once loaded (without any additional query).
+ *
  * @author Fabien Vanden Bulck
  */
 @RestController
 @RequestMapping("/products")
 public class ProductResource {
+  /** The properties by which products can be sorted (all of them are indexed). */
+  private static final Set<String> SORTABLE_PROPERTIES = new HashSet<>(Arrays.asList("id", "name", "price"));
+
   @Autowired
   private ProductService productService;
 
   @Autowired
-  private ModelMapper modelMapper;
+  private ProductMapper productMapper;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Autowired
+  private MappingJackson2XmlHttpMessageConverter xmlMessageConverter;
+
+  @Autowired
+  private Validator validator;
+
+  @Value("${products.pagination.default-limit:50}")
+  private int defaultLimit;
+
+  @Value("${products.pagination.max-limit:500}")
+  private int maxLimit;
+
+  @Value("${products.pagination.max-offset:10000}")
+  private long maxOffset;
+
+  @Value("${products.batch.max-size:1000}")
+  private int maxBatchSize;
 
   @RequestMapping(method = RequestMethod.GET)
   @PreAuthorize("hasAuthority('PERM_READ_PRODUCT')")
-  public ResponseEntity<?> getProducts() {
+  public ResponseEntity<?> getProducts(@RequestParam(value = "after", required = false) String after,
+                                       @RequestParam(value = "limit", required = false) Integer limit,
+                                       @RequestParam(value = "minPrice", required = false) BigDecimal minPrice,
+                                       @RequestParam(value = "maxPrice", required = false) BigDecimal maxPrice,
+                                       @RequestParam(value = "page", required = false) Integer page,
+                                       @RequestParam(value = "size", required = false) Integer size,
+                                       @RequestParam(value = "sort", required = false) String sort,
+                                       WebRequest webRequest) {
+    boolean cursorPagination = after != null || limit != null;
+    boolean numberedPagination = minPrice != null || maxPrice != null || page != null || size != null || sort != null;
+
+    if (cursorPagination && numberedPagination) {
+      throw new ResourceParameterException("Cursor pagination (after, limit) can not be combined with " +
+          "filtered pagination (minPrice, maxPrice, page, size, sort)");
+    } else if (cursorPagination) {
+      return getProductsPage(after, limit, webRequest);
+    } else if (numberedPagination) {
+      return getProductsNumberedPage(minPrice, maxPrice, page, size, sort, webRequest);
+    }
+
+    // Only the ETag is used: a deletion does not change the date of last update of catalogue
+    if (checkNotModified(webRequest, "catalogue-" + productService.getCatalogueState(), -1)) {
+      return null;
+    }
+
     Collection<Product> products = productService.findAll();
 
-    Type listType = new TypeToken<Collection<ProductDto>>() {}.getType();
-    Collection<ProductDto> productDtos = modelMapper.map(products, listType);
+    Collection<ProductDto> productDtos = productMapper.toDtos(products);
+
+    return new ResponseEntity(productDtos, HttpStatus.OK);
+  }
+
+  @RequestMapping(value = "/export", method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_VALUE)
+  @PreAuthorize("hasAuthority('PERM_READ_PRODUCT')")
+  public ResponseEntity<StreamingResponseBody> exportProductsAsJson() {
+    StreamingResponseBody body = outputStream -> {
+      JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream, JsonEncoding.UTF8);
+      generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+      generator.writeStartArray();
+      writeProducts(generator);
+      generator.writeEndArray();
+      generator.close();
+    };
+
+    return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON_UTF8).body(body);
+  }
+
+  @RequestMapping(value = "/export", method = RequestMethod.GET, produces = MediaType.APPLICATION_XML_VALUE)
+  @PreAuthorize("hasAuthority('PERM_READ_PRODUCT')")
+  public ResponseEntity<StreamingResponseBody> exportProductsAsXml() {
+    XmlMapper xmlMapper = (XmlMapper) xmlMessageConverter.getObjectMapper();
+
+    StreamingResponseBody body = outputStream -> {
+      ToXmlGenerator generator = xmlMapper.getFactory().createGenerator(outputStream);
+      generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+      generator.setNextName(new QName("products"));
+      generator.writeStartObject();
+      generator.writeFieldName("product");
+      generator.writeStartArray();
+      writeProducts(generator);
+      generator.writeEndArray();
+      generator.writeEndObject();
+      generator.close();
+    };
+
+    return ResponseEntity.ok().contentType(MediaType.APPLICATION_XML).body(body);
+  }
+
+  @RequestMapping(value = "/lookup", method = RequestMethod.GET)
+  @PreAuthorize("hasAuthority('PERM_READ_PRODUCT')")
+  public ResponseEntity<?> lookupProducts(@RequestParam(value = "name", required = false) String name,
+                                          @RequestParam(value = "prefix", required = false) String prefix,
+                                          @RequestParam(value = "limit", required = false) Integer limit) {
+    List<Product> products;
+
+    if (name != null && prefix == null) {
+      products = productService.findByNameIgnoringCase(name);
+    } else if (prefix != null && name == null) {
+      products = productService.findByNamePrefix(prefix, checkLimit(limit, "Limit"));
+    } else {
+      throw new ResourceParameterException("Either name or prefix must be provided");
+    }
+
+    Collection<ProductDto> productDtos = productMapper.toDtos(products);
+
+    return new ResponseEntity(productDtos, HttpStatus.OK);
+  }
+
+  @RequestMapping(value = "/search", method = RequestMethod.GET)
+  @PreAuthorize("hasAuthority('PERM_READ_PRODUCT')")
+  public ResponseEntity<?> searchProducts(@RequestParam("q") String query,
+                                          @RequestParam(value = "limit", required = false) Integer limit) {
+    if (query.trim().isEmpty()) {
+      throw new ResourceParameterException("Query must not be empty");
+    }
+
+    List<Product> products = productService.search(query, checkLimit(limit, "Limit"));
+
+    Collection<ProductDto> productDtos = productMapper.toDtos(products);
 
     return new ResponseEntity(productDtos, HttpStatus.OK);
   }
 
   @RequestMapping(value = "/{id}", method = RequestMethod.GET)
   @PreAuthorize("hasAuthority('PERM_READ_PRODUCT')")
-  public ResponseEntity<?> getProduct(@PathVariable("id") Long id) {
+  public ResponseEntity<?> getProduct(@PathVariable("id") Long id, WebRequest webRequest) {
     Product product = productService.find(id);
 
-    ProductDto productDto = modelMapper.map(product, ProductDto.class);
+    if (checkNotModified(webRequest, productVersion(product), product.getUpdatedAt().getTime())) {
+      return null;
+    }
+
+    ProductDto productDto = productMapper.toDto(product);
 
     return new ResponseEntity(productDto, HttpStatus.OK);
   }
@@ -73,17 +237,26 @@ public class ProductResource {
   @RequestMapping(method = RequestMethod.POST)
   @PreAuthorize("hasAuthority('PERM_WRITE_PRODUCT')")
   public ResponseEntity<?> createProduct(@Valid @RequestBody ProductCreationDto productDto) {
-    Product productToCreate = modelMapper.map(productDto, Product.class);
+    Product productToCreate = productMapper.toEntity(productDto);
 
     Product productCreated = productService.create(productToCreate);
 
     return new ResponseEntity(productCreated, HttpStatus.CREATED);
   }
 
+  @RequestMapping(value = "/batch", method = RequestMethod.POST)
+  @PreAuthorize("hasAuthority('PERM_WRITE_PRODUCT')")
+  public ResponseEntity<?> createProducts(@RequestBody List<ProductCreationDto> productDtos) {
+    List<ProductBatchResultDto> results =
+        processBatch(productDtos, productMapper::toEntity, productService::createAll);
+
+    return new ResponseEntity(results, HttpStatus.OK);
+  }
+
   @RequestMapping(value = "/{id}", method = RequestMethod.PUT)
   @PreAuthorize("hasAuthority('PERM_WRITE_PRODUCT')")
   public ResponseEntity<?> updateProduct(@PathVariable("id") Long id, @Valid @RequestBody ProductUpdateDto productDto) {
-    Product productToUpdate = modelMapper.map(productDto, Product.class);
+    Product productToUpdate = productMapper.toEntity(productDto);
     productToUpdate.setId(id);
 
     Product productUpdated = productService.update(productToUpdate);
@@ -91,6 +264,15 @@ public class ProductResource {
     return new ResponseEntity(productUpdated, HttpStatus.OK);
   }
 
+  @RequestMapping(value = "/batch", method = RequestMethod.PUT)
+  @PreAuthorize("hasAuthority('PERM_WRITE_PRODUCT')")
+  public ResponseEntity<?> updateProducts(@RequestBody List<ProductBatchUpdateDto> productDtos) {
+    List<ProductBatchResultDto> results =
+        processBatch(productDtos, productMapper::toEntity, productService::updateAll);
+
+    return new ResponseEntity(results, HttpStatus.OK);
+  }
+
   @RequestMapping(method = RequestMethod.DELETE)
   @PreAuthorize("hasAuthority('PERM_WRITE_PRODUCT')")
   public ResponseEntity<?> deleteProducts() {
@@ -106,4 +288,189 @@ public class ProductResource {
 
     return new ResponseEntity(HttpStatus.NO_CONTENT);
   }
+
+  private ResponseEntity<?> getProductsPage(String after, Integer limit, WebRequest webRequest) {
+    Long afterId = after != null ? ProductCursor.decode(after) : null;
+    int pageLimit = checkLimit(limit, "Limit");
+
+    // One extra product is fetched to know whether a next page exists
+    List<Product> products = productService.findAfter(afterId, pageLimit + 1);
+    String next = null;
+
+    if (products.size() > pageLimit) {
+      products = products.subList(0, pageLimit);
+      next = ProductCursor.encode(products.get(pageLimit - 1).getId());
+    }
+
+    if (checkNotModified(webRequest, "page-" + next + "-" + productsVersion(products), -1)) {
+      return null;
+    }
+
+    Collection<ProductDto> productDtos = productMapper.toDtos(products);
+
+    return new ResponseEntity(new ProductPageDto(productDtos, next), HttpStatus.OK);
+  }
+
+  private ResponseEntity<?> getProductsNumberedPage(BigDecimal minPrice, BigDecimal maxPrice, Integer page,
+                                                    Integer size, String sort, WebRequest webRequest) {
+    if (minPrice != null && maxPrice != null && minPrice.compareTo(maxPrice) > 0) {
+      throw new ResourceParameterException("Minimum price must be equal or lower than maximum price");
+    }
+
+    int pageNumber = page != null ? page : 0;
+    if (pageNumber < 0) {
+      throw new ResourceParameterException("Page must be equal or higher than 0");
+    }
+
+    int pageSize = checkLimit(size, "Size");
+
+    // Deep pages are scanned up to their offset (which would also overflow the offset of page request)
+    if ((long) pageNumber * pageSize > maxOffset) {
+      throw new ResourceParameterException("Page multiplied by size must be equal or lower than " + maxOffset +
+          ": use cursor pagination (after, limit) to go further");
+    }
+
+    Page<Product> products = productService.findByPrice(minPrice, maxPrice,
+        new PageRequest(pageNumber, pageSize, parseSort(sort)));
+
+    if (checkNotModified(webRequest, "page-" + products.getTotalElements() + "-" +
+        productsVersion(products.getContent()), -1)) {
+      return null;
+    }
+
+    Collection<ProductDto> productDtos = productMapper.toDtos(products.getContent());
+
+    return new ResponseEntity(new ProductNumberedPageDto(productDtos, pageNumber, pageSize,
+        products.getTotalElements(), products.getTotalPages()), HttpStatus.OK);
+  }
+
+  // Sort is expressed as "property[,asc|desc]", products are then sorted by identifier to get a stable order
+  private static Sort parseSort(String sort) {
+    if (sort == null) {
+      return new Sort(Sort.Direction.ASC, "id");
+    }
+
+    String[] sortParts = sort.split(",");
+    String property = sortParts[0].trim();
+
+    if (sortParts.length > 2 || !SORTABLE_PROPERTIES.contains(property)) {
+      throw new ResourceParameterException("Sort '" + sort + "' is invalid: products can be sorted by " +
+          String.join(", ", SORTABLE_PROPERTIES) + " (ascending or descending)");
+    }
+
+    Sort.Direction direction = Sort.Direction.ASC;
+    if (sortParts.length == 2) {
+      direction = Sort.Direction.fromStringOrNull(sortParts[1].trim());
+
+      if (direction == null) {
+        throw new ResourceParameterException("Sort direction '" + sortParts[1].trim() + "' is invalid");
+      }
+    }
+
+    Sort sortByProperty = new Sort(direction, property);
+
+    return "id".equals(property) ? sortByProperty : sortByProperty.and(new Sort(Sort.Direction.ASC, "id"));
+  }
+
+  private int checkLimit(Integer limit, String parameterName) {
+    int checkedLimit = limit != null ? limit : defaultLimit;
+
+    if (checkedLimit < 1) {
+      throw new ResourceParameterException(parameterName + " must be equal or higher than 1");
+    }
+
+    return Math.min(checkedLimit, maxLimit);
+  }
+
+  private <T> List<ProductBatchResultDto> processBatch(List<T> productDtos, Function<T, Product> mapper,
+                                                      Function<List<Product>, List<BatchResult<Product>>> processor) {
+    if (productDtos.size() > maxBatchSize) {
+      throw new ResourceParameterException("Batch must contain at most " + maxBatchSize + " products");
+    }
+
+    ProductBatchResultDto[] results = new ProductBatchResultDto[productDtos.size()];
+    List<Product> validProducts = new ArrayList<>(productDtos.size());
+    List<Integer> validIndexes = new ArrayList<>(productDtos.size());
+
+    for (int i = 0; i < productDtos.size(); i++) {
+      if (productDtos.get(i) == null) {
+        results[i] = new ProductBatchResultDto(i, HttpStatus.BAD_REQUEST.value(), null, "Product must not be null");
+        continue;
+      }
+
+      Set<ConstraintViolation<T>> violations = validator.validate(productDtos.get(i));
+
+      if (violations.isEmpty()) {
+        validProducts.add(mapper.apply(productDtos.get(i)));
+        validIndexes.add(i);
+      } else {
+        String message = violations.stream().map(ConstraintViolation::getMessage).collect(Collectors.joining(", "));
+        results[i] = new ProductBatchResultDto(i, HttpStatus.BAD_REQUEST.value(), null, message);
+      }
+    }
+
+    // Only valid products are processed, their results are then merged with validation errors by index
+    List<BatchResult<Product>> processedResults = processor.apply(validProducts);
+    for (int i = 0; i < processedResults.size(); i++) {
+      BatchResult<Product> result = processedResults.get(i);
+      int index = validIndexes.get(i);
+
+      results[index] = new ProductBatchResultDto(index, result.getStatus().value(),
+          result.isSuccess() ? productMapper.toDto(result.getItem()) : null, result.getMessage());
+    }
+
+    return Arrays.asList(results);
+  }
+
+  /**
+   * Checks whether the representation requested has not been modified, based on the ETag of representation.
+   *
+   * The ETag is a digest of the version of the products returned, the media types accepted (the JSON and the XML
+   * representations differ) and the query parameters. Responses vary by Accept header.
+   *
+   * @param webRequest the request
+   * @param version the version of the products returned
+   * @param lastModified the date of last update of the products returned, or -1 if unknown
+   *
+   * @return true if the representation has not been modified (the response is then a 304), false otherwise
+   */
+  private static boolean checkNotModified(WebRequest webRequest, String version, long lastModified) {
+    StringBuilder representation = new StringBuilder(version);
+    String accept = webRequest.getHeader(HttpHeaders.ACCEPT);
+
+    representation.append('|').append(accept != null ? accept : "");
+    for (Map.Entry<String, String[]> parameter : new TreeMap<>(webRequest.getParameterMap()).entrySet()) {
+      representation.append('|').append(parameter.getKey()).append('=').append(String.join(",", parameter.getValue()));
+    }
+
+    String eTag = DigestUtils.md5DigestAsHex(representation.toString().getBytes(StandardCharsets.UTF_8));
+
+    if (webRequest instanceof ServletWebRequest) {
+      ((ServletWebRequest) webRequest).getResponse().addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+    }
+
+    return webRequest.checkNotModified("\"" + eTag + "\"", lastModified);
+  }
+
+  private static String productVersion(Product product) {
+    return product.getId() + "-" + product.getVersion();
+  }
+
+  private static String productsVersion(List<Product> products) {
+    return products.stream().map(ProductResource::productVersion).collect(Collectors.joining(","));
+  }
+
+  private void writeProducts(JsonGenerator generator) throws IOException {
+    try {
+      productService.exportAll(product -> {
+        try {
+          generator.writeObject(productMapper.toDto(product));
+        } catch (IOException exception) {
+          throw new UncheckedIOException(exception);
+        }
+      });
+    } catch (UncheckedIOException exception) {
+      throw exception.getCause();
+    }
+  }
 }
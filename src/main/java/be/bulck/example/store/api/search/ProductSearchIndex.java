@@ -0,0 +1,520 @@
+/*
+ * Copyright (C) 2017 The Store API Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package be.bulck.example.store.api.search;
+
+import be.bulck.example.store.api.domain.Product;
+import be.bulck.example.store.api.service.ProductEvent;
+import be.bulck.example.store.api.util.TextNormalizer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+/**
+ * The in-memory inverted index used to search products by name and description.
+ *
+ * Texts are normalized (lower-cased, without accents) and split into terms. Each term of query matches the terms of
+ * index starting with it (exact matches weigh more than prefix matches) and products must match all terms of query.
+ * A term of query matches at most 64 terms of index: itself, then the most frequent terms starting with it, so that a
+ * short prefix does not scan the postings of thousands of terms; products only having rarer terms starting with it are
+ * not found.
+ * Products are ranked by TF-IDF, the terms of name weighing more than the terms of description.
+ *
+ * The postings of each term are primitive arrays sorted by product identifier (12 bytes by posting), replaced on write
+ * (products appended in order of identifier, as when the catalogue is loaded, share the arrays). Searches are
+ * lock-free; updates are serialized and applied once the transaction saving the product is committed.
+ *
+ * The index is held by each instance of API and is only updated by the products saved through this instance: when
+ * several instances run, the products created, updated or deleted through the others are not seen until restart.
+ *
+ * @author Fabien Vanden Bulck
+ */
+@Component
+public class ProductSearchIndex {
+  /** The pattern matching the separators of terms. */
+  private static final Pattern TERM_SEPARATOR = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+
+  /** The weight of a term occurring in the name of product. */
+  private static final float NAME_WEIGHT = 3.0f;
+
+  /** The weight of a term occurring in the description of product. */
+  private static final float DESCRIPTION_WEIGHT = 1.0f;
+
+  /** The factor applied to the score of terms only matched by prefix. */
+  private static final float PREFIX_MATCH_FACTOR = 0.5f;
+
+  /** The maximum number of terms of index matched by a term of query (the most frequent ones). */
+  private static final int MAX_EXPANSIONS = 64;
+
+  /** The postings by term (sorted to match prefixes). */
+  private final ConcurrentNavigableMap<String, TermPostings> postings = new ConcurrentSkipListMap<>();
+
+  /** The products indexed by identifier. */
+  private final Map<Long, IndexedProduct> products = new ConcurrentHashMap<>();
+
+  /** The lock serializing updates of index. */
+  private final Object updateLock = new Object();
+
+  /** The identifiers of products deleted while the index is loaded (null if it is not loaded). */
+  private Set<Long> deletedWhileLoading;
+
+  /** Whether all products have been deleted while the index is loaded. */
+  private boolean clearedWhileLoading;
+
+  /**
+   * Indexes a product (the previous version of product is replaced, unless it is more recent).
+   *
+   * @param product the product to index
+   */
+  public void index(Product product) {
+    index(product, false);
+  }
+
+  /**
+   * Starts loading the index: products deleted from now are recorded, so that their versions read by the load are not
+   * indexed afterwards.
+   */
+  public void startLoading() {
+    synchronized (updateLock) {
+      deletedWhileLoading = new HashSet<>();
+      clearedWhileLoading = false;
+    }
+  }
+
+  /**
+   * Indexes a product read by the load of index, unless it has been deleted since the load started.
+   *
+   * @param product the product to index
+   */
+  public void load(Product product) {
+    index(product, true);
+  }
+
+  /**
+   * Finishes loading the index: deletions are no longer recorded and the postings are trimmed to their size.
+   */
+  public void finishLoading() {
+    synchronized (updateLock) {
+      deletedWhileLoading = null;
+      clearedWhileLoading = false;
+      postings.replaceAll((term, termPostings) -> termPostings.trim());
+    }
+  }
+
+  /**
+   * Removes a product from index.
+   *
+   * @param id the identifier of product to remove
+   */
+  public void remove(Long id) {
+    synchronized (updateLock) {
+      if (deletedWhileLoading != null) {
+        deletedWhileLoading.add(id);
+      }
+
+      IndexedProduct previousProduct = products.remove(id);
+
+      if (previousProduct != null) {
+        removePostings(id, previousProduct);
+      }
+    }
+  }
+
+  /**
+   * Removes all products from index.
+   */
+  public void clear() {
+    synchronized (updateLock) {
+      if (deletedWhileLoading != null) {
+        clearedWhileLoading = true;
+      }
+
+      products.clear();
+      postings.clear();
+    }
+  }
+
+  /**
+   * Gets the number of products indexed.
+   *
+   * @return the number of products indexed
+   */
+  public int size() {
+    return products.size();
+  }
+
+  /**
+   * Searches the products matching a query.
+   *
+   * @param query the query
+   * @param limit the maximum number of products to return
+   *
+   * @return a list containing the identifiers of at most limit products, the most relevant first
+   */
+  public List<Long> search(String query, int limit) {
+    Set<String> queryTerms = tokenize(query);
+
+    if (queryTerms.isEmpty() || limit < 1) {
+      return Collections.emptyList();
+    }
+
+    List<TermMatches> termMatches = new ArrayList<>(queryTerms.size());
+    for (String queryTerm : queryTerms) {
+      TermMatches matches = match(queryTerm);
+
+      if (matches.isEmpty()) {
+        return Collections.emptyList();
+      }
+      termMatches.add(matches);
+    }
+
+    // Candidates come from the rarest term of query, the other terms are then looked up for each candidate
+    termMatches.sort(Comparator.comparingInt(TermMatches::size));
+    TermMatches rarestMatches = termMatches.get(0);
+
+    PriorityQueue<ScoredProduct> topProducts = new PriorityQueue<>(limit + 1);
+    Set<Long> visitedIds = rarestMatches.postings.size() > 1 ? new HashSet<>() : null;
+
+    for (TermPostings candidatePostings : rarestMatches.postings) {
+      for (int i = 0; i < candidatePostings.size; i++) {
+        long id = candidatePostings.ids[i];
+
+        if (visitedIds != null && !visitedIds.add(id)) {
+          continue;
+        }
+
+        float score = 0;
+        for (TermMatches matches : termMatches) {
+          float termScore = matches.score(id);
+
+          if (termScore == 0) {
+            score = 0;
+            break;
+          }
+          score += termScore;
+        }
+
+        if (score > 0) {
+          topProducts.offer(new ScoredProduct(id, score));
+
+          if (topProducts.size() > limit) {
+            topProducts.poll();
+          }
+        }
+      }
+    }
+
+    List<Long> ids = new ArrayList<>(topProducts.size());
+    while (!topProducts.isEmpty()) {
+      ids.add(topProducts.poll().id);
+    }
+    Collections.reverse(ids);
+
+    return ids;
+  }
+
+  /**
+   * Updates the index once a product event is committed.
+   *
+   * @param event the product event
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onProductEvent(ProductEvent event) {
+    switch (event.getType()) {
+      case SAVED:
+        index(event.getProduct());
+        break;
+      case DELETED:
+        remove(event.getProduct().getId());
+        break;
+      case ALL_DELETED:
+        clear();
+        break;
+    }
+  }
+
+  private void index(Product product, boolean loaded) {
+    Map<String, Float> termWeights = new HashMap<>();
+    addTerms(termWeights, product.getName(), NAME_WEIGHT);
+    addTerms(termWeights, product.getDescription(), DESCRIPTION_WEIGHT);
+
+    long version = product.getVersion() != null ? product.getVersion() : 0L;
+
+    synchronized (updateLock) {
+      if (loaded && deletedWhileLoading != null &&
+          (clearedWhileLoading || deletedWhileLoading.contains(product.getId()))) {
+        return;
+      }
+
+      IndexedProduct previousProduct = products.get(product.getId());
+
+      if (previousProduct != null) {
+        if (previousProduct.version > version) {
+          return;
+        }
+
+        removePostings(product.getId(), previousProduct);
+      }
+
+      termWeights.forEach((term, weight) -> postings.put(term,
+          postings.getOrDefault(term, TermPostings.EMPTY).with(product.getId(), (float) (1 + Math.log(weight)))));
+      products.put(product.getId(), new IndexedProduct(version, termWeights.keySet()));
+    }
+  }
+
+  // The term of query itself is always matched, then the most frequent terms starting with it
+  private TermMatches match(String queryTerm) {
+    TermMatches matches = new TermMatches();
+    int productCount = Math.max(products.size(), 1);
+    TermPostings exactPostings = postings.get(queryTerm);
+
+    if (exactPostings != null) {
+      matches.add(exactPostings, idf(productCount, exactPostings));
+    }
+
+    PriorityQueue<TermPostings> prefixPostings = new PriorityQueue<>(Comparator.comparingInt(p -> p.size));
+    int maxPrefixMatches = MAX_EXPANSIONS - matches.postings.size();
+
+    for (TermPostings termPostings : postings.subMap(queryTerm, false, queryTerm + Character.MAX_VALUE, true).values()) {
+      prefixPostings.offer(termPostings);
+
+      if (prefixPostings.size() > maxPrefixMatches) {
+        prefixPostings.poll();
+      }
+    }
+
+    for (TermPostings termPostings : prefixPostings) {
+      matches.add(termPostings, idf(productCount, termPostings) * PREFIX_MATCH_FACTOR);
+    }
+
+    return matches;
+  }
+
+  private static float idf(int productCount, TermPostings termPostings) {
+    return (float) Math.log(1 + (double) productCount / termPostings.size);
+  }
+
+  private void removePostings(Long id, IndexedProduct indexedProduct) {
+    for (String term : indexedProduct.terms) {
+      TermPostings termPostings = postings.get(term);
+
+      if (termPostings != null) {
+        TermPostings remainingPostings = termPostings.without(id);
+
+        if (remainingPostings.size == 0) {
+          postings.remove(term);
+        } else {
+          postings.put(term, remainingPostings);
+        }
+      }
+    }
+  }
+
+  private static void addTerms(Map<String, Float> termWeights, String text, float weight) {
+    for (String term : tokenize(text)) {
+      termWeights.merge(term, weight, Float::sum);
+    }
+  }
+
+  private static Set<String> tokenize(String text) {
+    Set<String> terms = new LinkedHashSet<>();
+
+    if (text != null) {
+      for (String term : TERM_SEPARATOR.split(TextNormalizer.normalize(text))) {
+        if (!term.isEmpty()) {
+          terms.add(term);
+        }
+      }
+    }
+
+    return terms;
+  }
+
+  /**
+   * The terms of a product indexed, to remove its postings once it is updated or deleted.
+   */
+  private static final class IndexedProduct {
+    private final long version;
+
+    private final String[] terms;
+
+    private IndexedProduct(long version, Set<String> terms) {
+      this.version = version;
+      this.terms = terms.toArray(new String[terms.size()]);
+    }
+  }
+
+  /**
+   * The postings of a term: the identifiers of products (sorted) and the weights of term in these products.
+   *
+   * Postings are never modified once published, only the slots beyond their size may be written: a product appended
+   * after the last one is written in place and published by new postings sharing the arrays, other updates copy them.
+   * Updates must be serialized and applied to the current postings of term.
+   */
+  private static final class TermPostings {
+    private static final TermPostings EMPTY = new TermPostings(new long[0], new float[0], 0);
+
+    private final long[] ids;
+
+    private final float[] weights;
+
+    private final int size;
+
+    private TermPostings(long[] ids, float[] weights, int size) {
+      this.ids = ids;
+      this.weights = weights;
+      this.size = size;
+    }
+
+    private float weight(long id) {
+      int index = Arrays.binarySearch(ids, 0, size, id);
+
+      return index >= 0 ? weights[index] : 0;
+    }
+
+    private TermPostings with(long id, float weight) {
+      int index = Arrays.binarySearch(ids, 0, size, id);
+
+      if (index >= 0) {
+        float[] newWeights = Arrays.copyOf(weights, ids.length);
+        newWeights[index] = weight;
+
+        return new TermPostings(Arrays.copyOf(ids, ids.length), newWeights, size);
+      }
+
+      int insertionIndex = -index - 1;
+
+      if (insertionIndex == size && size < ids.length) {
+        ids[size] = id;
+        weights[size] = weight;
+
+        return new TermPostings(ids, weights, size + 1);
+      }
+
+      int capacity = size < ids.length ? ids.length : Math.max(4, size + (size >> 1));
+      long[] newIds = new long[capacity];
+      float[] newWeights = new float[capacity];
+
+      System.arraycopy(ids, 0, newIds, 0, insertionIndex);
+      System.arraycopy(weights, 0, newWeights, 0, insertionIndex);
+      newIds[insertionIndex] = id;
+      newWeights[insertionIndex] = weight;
+      System.arraycopy(ids, insertionIndex, newIds, insertionIndex + 1, size - insertionIndex);
+      System.arraycopy(weights, insertionIndex, newWeights, insertionIndex + 1, size - insertionIndex);
+
+      return new TermPostings(newIds, newWeights, size + 1);
+    }
+
+    private TermPostings without(long id) {
+      int index = Arrays.binarySearch(ids, 0, size, id);
+
+      if (index < 0) {
+        return this;
+      }
+
+      long[] newIds = new long[size - 1];
+      float[] newWeights = new float[size - 1];
+
+      System.arraycopy(ids, 0, newIds, 0, index);
+      System.arraycopy(weights, 0, newWeights, 0, index);
+      System.arraycopy(ids, index + 1, newIds, index, size - index - 1);
+      System.arraycopy(weights, index + 1, newWeights, index, size - index - 1);
+
+      return new TermPostings(newIds, newWeights, size - 1);
+    }
+
+    private TermPostings trim() {
+      return size < ids.length ? new TermPostings(Arrays.copyOf(ids, size), Arrays.copyOf(weights, size), size) : this;
+    }
+  }
+
+  /**
+   * The terms of index matched by a term of query, with their postings and their factors of score.
+   */
+  private static final class TermMatches {
+    private final List<TermPostings> postings = new ArrayList<>();
+
+    private float[] factors = new float[4];
+
+    private int size;
+
+    private void add(TermPostings termPostings, float factor) {
+      if (postings.size() == factors.length) {
+        factors = Arrays.copyOf(factors, factors.length * 2);
+      }
+
+      factors[postings.size()] = factor;
+      postings.add(termPostings);
+      size += termPostings.size;
+    }
+
+    private boolean isEmpty() {
+      return postings.isEmpty();
+    }
+
+    private int size() {
+      return size;
+    }
+
+    // The score of a product for a term of query is the best score among the terms of index matched
+    private float score(long id) {
+      float bestScore = 0;
+
+      for (int i = 0; i < postings.size(); i++) {
+        bestScore = Math.max(bestScore, postings.get(i).weight(id) * factors[i]);
+      }
+
+      return bestScore;
+    }
+  }
+
+  /**
+   * A product with its score (ordered by ascending score, then descending identifier).
+   */
+  private static final class ScoredProduct implements Comparable<ScoredProduct> {
+    private final long id;
+
+    private final float score;
+
+    private ScoredProduct(long id, float score) {
+      this.id = id;
+      this.score = score;
+    }
+
+    @Override
+    public int compareTo(ScoredProduct o) {
+      int comparison = Float.compare(score, o.score);
+
+      return comparison != 0 ? comparison : Long.compare(o.id, id);
+    }
+  }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2017 The Store API Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package be.bulck.example.store.api.search;
+
+import be.bulck.example.store.api.service.ProductService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The loader of product search index, which indexes the whole catalogue once the application is ready.
+ *
+ * Products are saved and deleted while the catalogue is read: saved products are indexed with their latest version,
+ * and the products deleted during the load are recorded by the index, so that the versions read are not indexed.
+ *
+ * @author Fabien Vanden Bulck
+ */
+@Component
+public class ProductSearchIndexLoader {
+  /** The logger. */
+  private static final Logger LOGGER = LoggerFactory.getLogger(ProductSearchIndexLoader.class);
+
+  @Autowired
+  private ProductService productService;
+
+  @Autowired
+  private ProductSearchIndex productSearchIndex;
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void load() {
+    long start = System.nanoTime();
+
+    productSearchIndex.startLoading();
+    try {
+      productService.exportAll(productSearchIndex::load);
+    } finally {
+      productSearchIndex.finishLoading();
+    }
+
+    LOGGER.info("{} products have been indexed for search in {} ms.", productSearchIndex.size(),
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+  }
+}
@@ -17,10 +17,13 @@
 
 package be.bulck.example.store.api.security.oauth2;
 
+import be.bulck.example.store.api.security.oauth2.jwt.CachingResourceServerTokenServices;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.method.configuration.EnableGlobalMethodSecurity;
 import org.springframework.security.oauth2.config.annotation.web.configuration.EnableResourceServer;
 import org.springframework.security.oauth2.config.annotation.web.configuration.ResourceServerConfigurerAdapter;
@@ -33,6 +36,11 @@ import org.springframework.security.oauth2.provider.token.store.JwtTokenStore;
 /**
  * The oAuth2 resource server configuration.
  *
+ * All requests need an access token, except the metrics scraped from the networks allowed ("metrics.scrape-networks"
+ * property, none by default): access tokens expire too early to be used by a scraper, tokens with the READ_METRICS
+ * permission can still read the metrics from anywhere. Networks are compared to the address of client seen by the
+ * server, so a reverse proxy must not be in a network allowed.
+ *
  * @author Fabien Vanden Bulck
  */
 @Configuration
@@ -45,11 +53,27 @@ public class OAuth2ResourceServerConfiguration extends ResourceServerConfigurerA
   @Value("${oauth2.jwt.hmac-key}")
   private String jwtHmacKey;
 
+  @Value("${oauth2.token.cache.maximum-size:10000}")
+  private long tokenCacheMaximumSize;
+
+  @Value("${oauth2.token.cache.maximum-age:3600}")
+  private long tokenCacheMaximumAge;
+
+  @Value("${metrics.scrape-networks:}")
+  private String[] metricsScrapeNetworks;
+
   @Override
   public void configure(ResourceServerSecurityConfigurer configurer) {
     configurer
         .resourceId(resourceId)
-        .tokenServices(tokenServices());
+        .tokenServices(cachingTokenServices());
+  }
+
+  @Override
+  public void configure(HttpSecurity http) throws Exception {
+    http.authorizeRequests()
+        .antMatchers(HttpMethod.GET, "/metrics").access(metricsAccess())
+        .anyRequest().authenticated();
   }
 
   @Bean
@@ -73,4 +97,21 @@ public class OAuth2ResourceServerConfiguration extends ResourceServerConfigurerA
 
     return defaultTokenServices;
   }
+
+  @Bean
+  public CachingResourceServerTokenServices cachingTokenServices() {
+    return new CachingResourceServerTokenServices(tokenStore(), tokenCacheMaximumSize, tokenCacheMaximumAge);
+  }
+
+  private String metricsAccess() {
+    StringBuilder access = new StringBuilder("hasAuthority('PERM_READ_METRICS')");
+
+    for (String network : metricsScrapeNetworks) {
+      if (!network.trim().isEmpty()) {
+        access.append(" or hasIpAddress('").append(network.trim()).append("')");
+      }
+    }
+
+    return access.toString();
+  }
 }
@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2017 The Store API Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package be.bulck.example.store.api.security.oauth2.jwt;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.common.exceptions.InvalidTokenException;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.token.ResourceServerTokenServices;
+import org.springframework.security.oauth2.provider.token.TokenStore;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The resource server token services caching the authentications of verified access tokens.
+ *
+ * Decoding a JWT access token means parsing its JSON claims and verifying its HMAC signature, which is done on every
+ * request by the default token services. As clients reuse the same access token until it expires, authentications
+ * are cached (keyed by the SHA-256 hash of token) and the expiration of token is still checked on every request.
+ *
+ * @author Fabien Vanden Bulck
+ */
+public class CachingResourceServerTokenServices implements ResourceServerTokenServices {
+  /** The token store decoding and verifying access tokens. */
+  private final TokenStore tokenStore;
+
+  /** The cache of verified authentications by token hash. */
+  private final Cache<String, VerifiedAuthentication> authentications;
+
+  /**
+   * Constructs an instance of caching resource server token services.
+   *
+   * @param tokenStore the token store decoding and verifying access tokens
+   * @param maximumSize the maximum number of authentications cached
+   * @param maximumAge the maximum age (in seconds) of authentications cached, whatever the token expiration
+   */
+  public CachingResourceServerTokenServices(TokenStore tokenStore, long maximumSize, long maximumAge) {
+    this.tokenStore = tokenStore;
+    this.authentications = Caffeine.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfterWrite(maximumAge, TimeUnit.SECONDS)
+        .recordStats()
+        .build();
+  }
+
+  @Override
+  public OAuth2Authentication loadAuthentication(String accessTokenValue)
+      throws AuthenticationException, InvalidTokenException {
+    String key = hash(accessTokenValue);
+    VerifiedAuthentication verifiedAuthentication = authentications.getIfPresent(key);
+
+    if (verifiedAuthentication == null) {
+      verifiedAuthentication = verify(accessTokenValue);
+      authentications.put(key, verifiedAuthentication);
+    }
+
+    if (verifiedAuthentication.isExpired()) {
+      authentications.invalidate(key);
+      throw new InvalidTokenException("Access token expired: " + accessTokenValue);
+    }
+
+    // The authentication manager sets request details on the authentication returned, so a copy is returned
+    OAuth2Authentication authentication = verifiedAuthentication.getAuthentication();
+    return new OAuth2Authentication(authentication.getOAuth2Request(), authentication.getUserAuthentication());
+  }
+
+  @Override
+  public OAuth2AccessToken readAccessToken(String accessToken) {
+    return tokenStore.readAccessToken(accessToken);
+  }
+
+  /**
+   * Gets the statistics of cache.
+   *
+   * @return the statistics of cache (hits, misses, evictions)
+   */
+  public CacheStats getCacheStats() {
+    return authentications.stats();
+  }
+
+  private VerifiedAuthentication verify(String accessTokenValue) {
+    OAuth2AccessToken accessToken = tokenStore.readAccessToken(accessTokenValue);
+
+    if (accessToken == null) {
+      throw new InvalidTokenException("Invalid access token: " + accessTokenValue);
+    } else if (accessToken.isExpired()) {
+      throw new InvalidTokenException("Access token expired: " + accessTokenValue);
+    }
+
+    OAuth2Authentication authentication = tokenStore.readAuthentication(accessToken);
+    if (authentication == null) {
+      throw new InvalidTokenException("Invalid access token: " + accessTokenValue);
+    }
+
+    return new VerifiedAuthentication(authentication, accessToken.getExpiration());
+  }
+
+  private static String hash(String accessTokenValue) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      byte[] hash = digest.digest(accessTokenValue.getBytes(StandardCharsets.UTF_8));
+
+      return Base64.getEncoder().encodeToString(hash);
+    } catch (NoSuchAlgorithmException exception) {
+      throw new IllegalStateException("SHA-256 is not available", exception);
+    }
+  }
+
+  /**
+   * The authentication of a verified access token.
+   */
+  private static final class VerifiedAuthentication {
+    /** The authentication of token. */
+    private final OAuth2Authentication authentication;
+
+    /** The expiration (in milliseconds since epoch) of token (or Long.MAX_VALUE if it never expires). */
+    private final long expiration;
+
+    private VerifiedAuthentication(OAuth2Authentication authentication, Date expiration) {
+      this.authentication = authentication;
+      this.expiration = expiration != null ? expiration.getTime() : Long.MAX_VALUE;
+    }
+
+    private OAuth2Authentication getAuthentication() {
+      return authentication;
+    }
+
+    private boolean isExpired() {
+      return System.currentTimeMillis() >= expiration;
+    }
+  }
+}
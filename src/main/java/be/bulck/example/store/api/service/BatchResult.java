@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2017 The Store API Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package be.bulck.example.store.api.service;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * The class representing the result of an item processed in batch.
+ *
+ * @param <T> the type of item
+ *
+ * @author Fabien Vanden Bulck
+ */
+public class BatchResult<T> {
+  /** The HTTP status of result. */
+  private final HttpStatus status;
+
+  /** The item processed (null if processing failed). */
+  private final T item;
+
+  /** The error message (null if processing succeeded). */
+  private final String message;
+
+  private BatchResult(HttpStatus status, T item, String message) {
+    this.status = status;
+    this.item = item;
+    this.message = message;
+  }
+
+  /**
+   * Creates the result of an item successfully processed.
+   *
+   * @param status the HTTP status of result
+   * @param item the item processed
+   * @param <T> the type of item
+   *
+   * @return the result
+   */
+  public static <T> BatchResult<T> success(HttpStatus status, T item) {
+    return new BatchResult<>(status, item, null);
+  }
+
+  /**
+   * Creates the result of an item which can not be processed.
+   *
+   * @param status the HTTP status of result
+   * @param message the error message
+   * @param <T> the type of item
+   *
+   * @return the result
+   */
+  public static <T> BatchResult<T> failure(HttpStatus status, String message) {
+    return new BatchResult<>(status, null, message);
+  }
+
+  /**
+   * Gets the HTTP status of result.
+   *
+   * @return the HTTP status of result
+   */
+  public HttpStatus getStatus() {
+    return status;
+  }
+
+  /**
+   * Gets the item processed.
+   *
+   * @return the item processed (null if processing failed)
+   */
+  public T getItem() {
+    return item;
+  }
+
+  /**
+   * Gets the error message.
+   *
+   * @return the error message (null if processing succeeded)
+   */
+  public String getMessage() {
+    return message;
+  }
+
+  /**
+   * Indicates if the item has been successfully processed.
+   *
+   * @return true if the item has been processed, false otherwise
+   */
+  public boolean isSuccess() {
+    return item != null;
+  }
+}
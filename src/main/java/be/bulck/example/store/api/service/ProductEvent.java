@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2017 The Store API Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package be.bulck.example.store.api.service;
+
+import be.bulck.example.store.api.domain.Product;
+
+/**
+ * The event published when products are saved or deleted (listeners should process it once the transaction is
+ * committed).
+ *
+ * @author Fabien Vanden Bulck
+ */
+public class ProductEvent {
+  /**
+   * The types of product event.
+   */
+  public enum Type {
+    /** A product has been created or updated. */
+    SAVED,
+
+    /** A product has been deleted. */
+    DELETED,
+
+    /** All products have been deleted. */
+    ALL_DELETED
+  }
+
+  /** The type of event. */
+  private final Type type;
+
+  /** The product saved or deleted (null if all products have been deleted). */
+  private final Product product;
+
+  /**
+   * Constructs an instance of product event.
+   *
+   * @param type the type of event
+   * @param product the product saved or deleted (null if all products have been deleted)
+   */
+  public ProductEvent(Type type, Product product) {
+    this.type = type;
+    this.product = product;
+  }
+
+  public Type getType() {
+    return type;
+  }
+
+  public Product getProduct() {
+    return product;
+  }
+
+  @Override
+  public String toString() {
+    return "ProductEvent{" +
+        "type=" + type +
+        ", product=" + product +
+        '}';
+  }
+}
@@ -18,10 +18,16 @@
 package be.bulck.example.store.api.service;
 
 import be.bulck.example.store.api.domain.Product;
+import be.bulck.example.store.api.domain.ProductCatalogueState;
 import be.bulck.example.store.api.exception.ResourceConflictException;
 import be.bulck.example.store.api.exception.ResourceNotFoundException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 
+import java.math.BigDecimal;
 import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * The service for product entity.
@@ -36,6 +42,41 @@ public interface ProductService {
    */
   Collection<Product> findAll();
 
+  /**
+   * Finds the products following a product identifier (keyset pagination on identifier).
+   *
+   * @param after the identifier after which products are returned (exclusive) or null to start from the beginning
+   * @param limit the maximum number of products to return
+   *
+   * @return a list containing at most limit products ordered by identifier
+   */
+  List<Product> findAfter(Long after, int limit);
+
+  /**
+   * Finds a page of products within a price range.
+   *
+   * @param minPrice the minimum price (inclusive) or null if there is no minimum
+   * @param maxPrice the maximum price (inclusive) or null if there is no maximum
+   * @param pageable the page to return (number, size and sort)
+   *
+   * @return the page of products
+   */
+  Page<Product> findByPrice(BigDecimal minPrice, BigDecimal maxPrice, Pageable pageable);
+
+  /**
+   * Exports all products one by one, without holding the whole catalogue in memory.
+   *
+   * @param consumer the consumer receiving each product (the product is detached once consumed)
+   */
+  void exportAll(Consumer<Product> consumer);
+
+  /**
+   * Gets the state of product catalogue, which changes each time a product is created, updated or deleted.
+   *
+   * @return the state of product catalogue
+   */
+  ProductCatalogueState getCatalogueState();
+
   /**
    * Finds a product by identifier.
    *
@@ -58,6 +99,35 @@ public interface ProductService {
    */
   Product findByName(String name);
 
+  /**
+   * Finds the products with a name, ignoring case and accents.
+   *
+   * @param name the name of products
+   *
+   * @return a list containing the products with corresponding name (empty if none is found)
+   */
+  List<Product> findByNameIgnoringCase(String name);
+
+  /**
+   * Finds the products whose name starts with a prefix, ignoring case and accents.
+   *
+   * @param prefix the prefix of name of products
+   * @param limit the maximum number of products to return
+   *
+   * @return a list containing at most limit products ordered by name
+   */
+  List<Product> findByNamePrefix(String prefix, int limit);
+
+  /**
+   * Searches the products matching a full-text query on their name and description.
+   *
+   * @param query the query
+   * @param limit the maximum number of products to return
+   *
+   * @return a list containing at most limit products, the most relevant first
+   */
+  List<Product> search(String query, int limit);
+
   /**
    * Creates a product.
    *
@@ -69,6 +139,15 @@ public interface ProductService {
    */
   Product create(Product product);
 
+  /**
+   * Creates products in batch (products with a name already used are not created).
+   *
+   * @param products the products to create
+   *
+   * @return a list containing the result of each product creation (in the same order as products)
+   */
+  List<BatchResult<Product>> createAll(List<Product> products);
+
   /**
    * Updates a product.
    *
@@ -81,6 +160,15 @@ public interface ProductService {
    */
   Product update(Product product);
 
+  /**
+   * Updates products in batch (products not found or with a name already used are not updated).
+   *
+   * @param products the products to update
+   *
+   * @return a list containing the result of each product update (in the same order as products)
+   */
+  List<BatchResult<Product>> updateAll(List<Product> products);
+
   /**
    * Deletes a product.
    *
@@ -18,16 +18,51 @@
 package be.bulck.example.store.api.service.impl;
 
 import be.bulck.example.store.api.domain.Product;
+import be.bulck.example.store.api.domain.ProductCatalogueState;
 import be.bulck.example.store.api.exception.ResourceConflictException;
 import be.bulck.example.store.api.exception.ResourceNotFoundException;
 import be.bulck.example.store.api.repository.ProductRepository;
+import be.bulck.example.store.api.search.ProductSearchIndex;
+import be.bulck.example.store.api.service.BatchResult;
+import be.bulck.example.store.api.service.ProductEvent;
 import be.bulck.example.store.api.service.ProductService;
+import be.bulck.example.store.api.util.TextNormalizer;
+import org.hibernate.exception.ConstraintViolationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.PersistenceException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static be.bulck.example.store.api.cache.CacheConfiguration.PRODUCTS_BY_NAME_CACHE;
+import static be.bulck.example.store.api.cache.CacheConfiguration.PRODUCTS_CACHE;
 
 /**
  * The service implementation for product entity.
@@ -35,19 +70,74 @@ import java.util.Collection;
  * @author Fabien Vanden Bulck
  */
 @Service
+@Transactional(readOnly = true)
 public class ProductServiceImpl implements ProductService {
   /** The logger. */
   private static final Logger LOGGER = LoggerFactory.getLogger(ProductServiceImpl.class);
 
+  /** The message of a conflict detected while flushing creations in batch. */
+  private static final String CREATION_CONFLICT = "Unable to create the products provided: " +
+      "a product with one of their names has been created concurrently";
+
+  /** The message of a conflict detected while flushing updates in batch. */
+  private static final String UPDATE_CONFLICT = "Unable to update the products provided: " +
+      "a product with one of their names has been created or renamed concurrently";
+
   @Autowired
   private ProductRepository productRepository;
 
+  @Autowired
+  private ProductSearchIndex productSearchIndex;
+
+  @Autowired
+  private ApplicationEventPublisher eventPublisher;
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+  private int batchSize;
+
   @Override
   public Collection<Product> findAll() {
     return (Collection<Product>) productRepository.findAll();
   }
 
   @Override
+  public List<Product> findAfter(Long after, int limit) {
+    return productRepository.findByIdGreaterThanOrderByIdAsc(after != null ? after : 0L, new PageRequest(0, limit));
+  }
+
+  @Override
+  public Page<Product> findByPrice(BigDecimal minPrice, BigDecimal maxPrice, Pageable pageable) {
+    if (minPrice != null && maxPrice != null) {
+      return productRepository.findByPriceBetween(minPrice, maxPrice, pageable);
+    } else if (minPrice != null) {
+      return productRepository.findByPriceGreaterThanEqual(minPrice, pageable);
+    } else if (maxPrice != null) {
+      return productRepository.findByPriceLessThanEqual(maxPrice, pageable);
+    }
+
+    return productRepository.findAll(pageable);
+  }
+
+  @Override
+  public void exportAll(Consumer<Product> consumer) {
+    try (Stream<Product> products = productRepository.streamAll()) {
+      products.forEach(product -> {
+        consumer.accept(product);
+        entityManager.detach(product);
+      });
+    }
+  }
+
+  @Override
+  public ProductCatalogueState getCatalogueState() {
+    return productRepository.findCatalogueState();
+  }
+
+  @Override
+  @Cacheable(cacheNames = PRODUCTS_CACHE, key = "#id")
   public Product find(Long id) {
     Product product = productRepository.findOne(id);
 
@@ -59,6 +149,7 @@ public class ProductServiceImpl implements ProductService {
   }
 
   @Override
+  @Cacheable(cacheNames = PRODUCTS_BY_NAME_CACHE, key = "#name")
   public Product findByName(String name) {
     Product product = productRepository.findByName(name);
 
@@ -70,51 +161,235 @@ public class ProductServiceImpl implements ProductService {
   }
 
   @Override
+  public List<Product> findByNameIgnoringCase(String name) {
+    return productRepository.findByNormalizedNameOrderByIdAsc(TextNormalizer.normalize(name));
+  }
+
+  @Override
+  public List<Product> findByNamePrefix(String prefix, int limit) {
+    String pattern = TextNormalizer.normalize(prefix).replaceAll("([!%_])", "!$1") + "%";
+
+    return productRepository.findByNormalizedNameLike(pattern, new PageRequest(0, limit));
+  }
+
+  @Override
+  public List<Product> search(String query, int limit) {
+    List<Long> ids = productSearchIndex.search(query, limit);
+
+    if (ids.isEmpty()) {
+      return new ArrayList<>();
+    }
+
+    Map<Long, Product> productsById = new HashMap<>();
+    productRepository.findAll(ids).forEach(product -> productsById.put(product.getId(), product));
+
+    // Products are returned in the order of relevance (a product deleted meanwhile is skipped)
+    return ids.stream().map(productsById::get).filter(product -> product != null).collect(Collectors.toList());
+  }
+
+  @Override
+  @Caching(put = {
+      @CachePut(cacheNames = PRODUCTS_CACHE, key = "#result.id"),
+      @CachePut(cacheNames = PRODUCTS_BY_NAME_CACHE, key = "#result.name")
+  })
+  @Transactional
   public Product create(Product product) {
     product.setId(null);
-    Product productWithSameName = productRepository.findByName(product.getName());
+    Product productCreated;
+
+    // The unique constraint on product names detects conflicts, even between concurrent creations
+    try {
+      productCreated = productRepository.saveAndFlush(product);
+    } catch (DataIntegrityViolationException exception) {
+      if (isNameConflict(exception)) {
+        throw new ResourceConflictException("Unable to create the product provided: " +
+            "a product with name '" + product.getName() + "' already exists", exception);
+      }
 
-    if (productWithSameName != null) {
-      throw new ResourceConflictException("Unable to create the product provided: " +
-          "a product with name '" + productWithSameName.getName() + "' already exists");
+      throw exception;
     }
 
-    Product productCreated = productRepository.save(product);
-    LOGGER.info("Product '" + productCreated.getName() + "' (" + productCreated.getId() + ") has been created.");
+    eventPublisher.publishEvent(new ProductEvent(ProductEvent.Type.SAVED, productCreated));
+    LOGGER.info("Product '{}' ({}) has been created.", productCreated.getName(), productCreated.getId());
 
     return productCreated;
   }
 
   @Override
+  @Transactional
+  public List<BatchResult<Product>> createAll(List<Product> products) {
+    Set<String> usedNames = productRepository.findByNameIn(getNames(products)).stream()
+        .map(product -> nameKey(product.getName()))
+        .collect(Collectors.toSet());
+    List<BatchResult<Product>> results = new ArrayList<>(products.size());
+    int createdCount = 0;
+
+    for (Product product : products) {
+      if (!usedNames.add(nameKey(product.getName()))) {
+        results.add(BatchResult.failure(HttpStatus.CONFLICT, "Unable to create the product provided: " +
+            "a product with name '" + product.getName() + "' already exists"));
+        continue;
+      }
+
+      product.setId(null);
+      Product productCreated = productRepository.save(product);
+      eventPublisher.publishEvent(new ProductEvent(ProductEvent.Type.SAVED, productCreated));
+      results.add(BatchResult.success(HttpStatus.CREATED, productCreated));
+
+      // Inserts are sent by JDBC batches and the persistence context is kept small
+      if (++createdCount % batchSize == 0) {
+        flush(CREATION_CONFLICT);
+        entityManager.clear();
+      }
+    }
+
+    flush(CREATION_CONFLICT);
+    LOGGER.info("{} of {} products have been created in batch.", createdCount, products.size());
+
+    return results;
+  }
+
+  @Override
+  @Transactional
+  @Caching(evict = {
+      @CacheEvict(cacheNames = PRODUCTS_CACHE, allEntries = true),
+      @CacheEvict(cacheNames = PRODUCTS_BY_NAME_CACHE, allEntries = true)
+  })
+  public List<BatchResult<Product>> updateAll(List<Product> products) {
+    Map<Long, Product> productsToUpdate = new HashMap<>();
+    productRepository.findAll(products.stream().map(Product::getId).collect(Collectors.toSet()))
+        .forEach(product -> productsToUpdate.put(product.getId(), product));
+
+    Map<String, Long> productIdsByName = new HashMap<>();
+    productRepository.findByNameIn(getNames(products))
+        .forEach(product -> productIdsByName.put(nameKey(product.getName()), product.getId()));
+
+    List<BatchResult<Product>> results = new ArrayList<>(products.size());
+    Set<Long> updatedIds = new HashSet<>();
+    Set<String> updatedNames = new HashSet<>();
+    int updatedCount = 0;
+
+    for (Product product : products) {
+      Product productToUpdate = productsToUpdate.get(product.getId());
+      Long productIdWithSameName = productIdsByName.get(nameKey(product.getName()));
+
+      if (productToUpdate == null) {
+        results.add(BatchResult.failure(HttpStatus.NOT_FOUND,
+            "Product with id '" + product.getId() + "' can not be found"));
+      } else if (!updatedIds.add(product.getId())) {
+        results.add(BatchResult.failure(HttpStatus.CONFLICT, "Unable to update the product provided: " +
+            "the product with id '" + product.getId() + "' is updated several times in batch"));
+      } else if ((productIdWithSameName != null && !productIdWithSameName.equals(product.getId())) ||
+          !updatedNames.add(nameKey(product.getName()))) {
+        results.add(BatchResult.failure(HttpStatus.CONFLICT, "Unable to update the product provided: " +
+            "an other product with name '" + product.getName() + "' exists"));
+      } else {
+        productToUpdate.setName(product.getName());
+        productToUpdate.setPrice(product.getPrice());
+        productToUpdate.setDescription(product.getDescription());
+        eventPublisher.publishEvent(new ProductEvent(ProductEvent.Type.SAVED, productToUpdate));
+        results.add(BatchResult.success(HttpStatus.OK, productToUpdate));
+        updatedCount++;
+      }
+    }
+
+    // Updates of dirty products are sent by JDBC batches
+    flush(UPDATE_CONFLICT);
+    LOGGER.info("{} of {} products have been updated in batch.", updatedCount, products.size());
+
+    return results;
+  }
+
+  @Override
+  @Caching(
+      put = @CachePut(cacheNames = PRODUCTS_CACHE, key = "#result.id"),
+      evict = @CacheEvict(cacheNames = PRODUCTS_BY_NAME_CACHE, allEntries = true)
+  )
+  @Transactional
   public Product update(Product product) {
     Product productToUpdate = find(product.getId());
     productToUpdate.setName(product.getName());
     productToUpdate.setPrice(product.getPrice());
     productToUpdate.setDescription(product.getDescription());
+    Product productUpdated;
+
+    try {
+      productUpdated = productRepository.saveAndFlush(productToUpdate);
+    } catch (DataIntegrityViolationException exception) {
+      if (isNameConflict(exception)) {
+        throw new ResourceConflictException("Unable to update the product provided: " +
+            "an other product with name '" + product.getName() + "' exists", exception);
+      }
 
-    Product productWithSameName = productRepository.findByName(productToUpdate.getName());
-    if (productWithSameName != null && !productWithSameName.getId().equals(productToUpdate.getId())) {
-      throw new ResourceConflictException("Unable to update the provided provided: " +
-          "an other product with name '" + productWithSameName.getName() + "' exists");
+      throw exception;
     }
 
-    Product productUpdated = productRepository.save(productToUpdate);
-    LOGGER.info("Product '" + productUpdated.getName() + "' (" + productUpdated.getId() + ") has been updated.");
+    eventPublisher.publishEvent(new ProductEvent(ProductEvent.Type.SAVED, productUpdated));
+    LOGGER.info("Product '{}' ({}) has been updated.", productUpdated.getName(), productUpdated.getId());
 
     return productUpdated;
   }
 
   @Override
+  @Caching(evict = {
+      @CacheEvict(cacheNames = PRODUCTS_CACHE, key = "#id"),
+      @CacheEvict(cacheNames = PRODUCTS_BY_NAME_CACHE, allEntries = true)
+  })
+  @Transactional
   public void delete(Long id) {
     Product productToDelete = find(id);
 
     productRepository.delete(productToDelete);
-    LOGGER.info("Product '" + productToDelete.getName() + "' (" + productToDelete.getId() + ") has been deleted");
+    eventPublisher.publishEvent(new ProductEvent(ProductEvent.Type.DELETED, productToDelete));
+    LOGGER.info("Product '{}' ({}) has been deleted", productToDelete.getName(), productToDelete.getId());
   }
 
   @Override
+  @Caching(evict = {
+      @CacheEvict(cacheNames = PRODUCTS_CACHE, allEntries = true),
+      @CacheEvict(cacheNames = PRODUCTS_BY_NAME_CACHE, allEntries = true)
+  })
+  @Transactional
   public void deleteAll() {
-    productRepository.deleteAll();;
-    LOGGER.info("All products have been deleted");
+    int deletedCount = productRepository.deleteAllInBulk();
+    eventPublisher.publishEvent(new ProductEvent(ProductEvent.Type.ALL_DELETED, null));
+    LOGGER.info("All products ({}) have been deleted", deletedCount);
+  }
+
+  // A product with a name checked as free can still be created or renamed concurrently before the flush
+  private void flush(String conflictMessage) {
+    try {
+      entityManager.flush();
+    } catch (PersistenceException exception) {
+      if (isNameConflict(exception)) {
+        throw new ResourceConflictException(conflictMessage, exception);
+      }
+
+      throw exception;
+    }
+  }
+
+  private static boolean isNameConflict(Exception exception) {
+    for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+      if (cause instanceof ConstraintViolationException) {
+        String constraintName = ((ConstraintViolationException) cause).getConstraintName();
+
+        // Constraint names are extracted as reported by the database: qualified by the schema (MySQL), or followed by
+        // the index and the columns (H2), in any case
+        return constraintName != null &&
+            constraintName.toUpperCase(Locale.ROOT).contains(Product.NAME_UNIQUE_CONSTRAINT);
+      }
+    }
+
+    return false;
+  }
+
+  private static Set<String> getNames(List<Product> products) {
+    return products.stream().map(Product::getName).collect(Collectors.toSet());
+  }
+
+  // The unique constraint on product names is case insensitive (MySQL collation)
+  private static String nameKey(String name) {
+    return name.toLowerCase(Locale.ROOT);
   }
 }
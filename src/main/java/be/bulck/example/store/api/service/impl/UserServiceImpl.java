@@ -17,17 +17,26 @@
 
 package be.bulck.example.store.api.service.impl;
 
+import be.bulck.example.store.api.cache.CacheConfiguration;
 import be.bulck.example.store.api.domain.security.User;
 import be.bulck.example.store.api.repository.UserRepository;
 import be.bulck.example.store.api.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.security.core.userdetails.UserCache;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * The service implementation for user entity.
  *
+ * Users are cached by username, so that the password grant (user details loading) and the token enhancement share a
+ * single database round-trip per user and per cache window. A saved user is evicted under any username it is cached
+ * with (its username may have changed).
+ *
  * @author Fabien Vanden Bulck
  */
 @Service
@@ -35,7 +44,14 @@ public class UserServiceImpl implements UserService {
   @Autowired
   private UserRepository userRepository;
 
+  @Autowired
+  private UserCache userCache;
+
+  @Autowired
+  private CacheManager cacheManager;
+
   @Override
+  @Transactional(readOnly = true)
   public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
     User user = findByUsername(username);
 
@@ -47,12 +63,41 @@ public class UserServiceImpl implements UserService {
   }
 
   @Override
+  @Transactional(readOnly = true)
   public User findByUsername(String username) {
-    return userRepository.findOneByUsername(username);
+    User user = (User) userCache.getUserFromCache(username);
+
+    if (user == null) {
+      user = userRepository.findOneByUsername(username);
+
+      if (user != null) {
+        userCache.putUserInCache(user);
+      }
+    }
+
+    return user;
   }
 
   @Override
   public User save(User user) {
-    return userRepository.save(user);
+    User userSaved = userRepository.save(user);
+    userCache.removeUserFromCache(userSaved.getUsername());
+    evictFromCache(userSaved.getId());
+
+    return userSaved;
+  }
+
+  // Users are cached by username, so the entry of a renamed user is still cached with its previous username
+  @SuppressWarnings("unchecked")
+  private void evictFromCache(Long id) {
+    Cache cache = cacheManager.getCache(CacheConfiguration.USERS_CACHE);
+    Object nativeCache = cache.getNativeCache();
+
+    if (nativeCache instanceof com.github.benmanes.caffeine.cache.Cache) {
+      ((com.github.benmanes.caffeine.cache.Cache<Object, Object>) nativeCache).asMap().values()
+          .removeIf(cachedUser -> cachedUser instanceof User && id.equals(((User) cachedUser).getId()));
+    } else {
+      cache.clear();
+    }
   }
 }
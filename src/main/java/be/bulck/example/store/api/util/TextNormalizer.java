@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2017 The Store API Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package be.bulck.example.store.api.util;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * The normalizer of texts used for case and accent insensitive lookups.
+ *
+ * @author Fabien Vanden Bulck
+ */
+public final class TextNormalizer {
+  /** The pattern matching diacritical marks (once characters are decomposed). */
+  private static final Pattern DIACRITICAL_MARKS = Pattern.compile("\\p{InCombiningDiacriticalMarks}+");
+
+  private TextNormalizer() {}
+
+  /**
+   * Normalizes a text: accents are removed and letters are lower-cased (e.g. "Crème Brûlée" becomes "creme brulee").
+   *
+   * @param text the text to normalize
+   *
+   * @return the text normalized (or null if text is null)
+   */
+  public static String normalize(String text) {
+    if (text == null) {
+      return null;
+    }
+
+    String decomposedText = Normalizer.normalize(text, Normalizer.Form.NFD);
+
+    return DIACRITICAL_MARKS.matcher(decomposedText).replaceAll("").toLowerCase(Locale.ROOT);
+  }
+}
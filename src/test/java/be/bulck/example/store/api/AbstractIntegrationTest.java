@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2017 The Store API Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package be.bulck.example.store.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Before;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The base class of integration tests: the whole application runs against an embedded H2 database (MySQL mode)
+ * migrated by Liquibase, with its sample data (user "jdoe", three products).
+ *
+ * Caches are cleared before each test, so that tests do not depend on the reads of previous ones.
+ *
+ * @author Fabien Vanden Bulck
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles({"prod", "test"})
+public abstract class AbstractIntegrationTest {
+  /** The identifier of the OAuth2 client of tests. */
+  protected static final String CLIENT_ID = "webapp";
+
+  /** The secret of the OAuth2 client of tests. */
+  protected static final String CLIENT_SECRET = "mei6bai0Aimeiwe2aegheebohnoh1U";
+
+  /** The username of the user of tests. */
+  protected static final String USERNAME = "jdoe";
+
+  /** The password of the user of tests. */
+  protected static final String PASSWORD = "secret";
+
+  @Autowired
+  protected MockMvc mockMvc;
+
+  @Autowired
+  protected ObjectMapper objectMapper;
+
+  @Autowired
+  private CacheManager cacheManager;
+
+  @Before
+  public void clearCaches() {
+    cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+  }
+
+  /**
+   * Obtains an access token of the user of tests (password grant).
+   *
+   * @return the access token
+   *
+   * @throws Exception if the token can not be obtained
+   */
+  protected String obtainAccessToken() throws Exception {
+    MvcResult result = mockMvc.perform(passwordGrant()).andExpect(status().isOk()).andReturn();
+
+    return objectMapper.readTree(result.getResponse().getContentAsString()).get("access_token").asText();
+  }
+
+  /**
+   * Builds a token request of the user of tests (password grant).
+   *
+   * @return the builder of token request
+   */
+  protected static MockHttpServletRequestBuilder passwordGrant() {
+    return post("/oauth/token")
+        .header(HttpHeaders.AUTHORIZATION, basic(CLIENT_ID, CLIENT_SECRET))
+        .param("grant_type", "password")
+        .param("username", USERNAME)
+        .param("password", PASSWORD);
+  }
+
+  /**
+   * Gets the value of the Authorization header carrying an access token.
+   *
+   * @param accessToken the access token
+   *
+   * @return the value of Authorization header
+   */
+  protected static String bearer(String accessToken) {
+    return "Bearer " + accessToken;
+  }
+
+  private static String basic(String username, String password) {
+    byte[] credentials = (username + ":" + password).getBytes(StandardCharsets.UTF_8);
+
+    return "Basic " + Base64.getEncoder().encodeToString(credentials);
+  }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2017 The Store API Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package be.bulck.example.store.api;
+
+import be.bulck.example.store.api.datasource.RequestStatistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static be.bulck.example.store.api.datasource.StatementBudget.assertWithinBudget;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The statement budgets of the main operations of API: a regression adding queries (N+1 selects, extra checks...)
+ * fails the build.
+ *
+ * @author Fabien Vanden Bulck
+ */
+public class StatementBudgetTest extends AbstractIntegrationTest {
+  private String accessToken;
+
+  @Before
+  public void setUp() throws Exception {
+    accessToken = obtainAccessToken();
+  }
+
+  @Test
+  public void passwordLoginExecutesAtMostTwoStatements() throws Exception {
+    clearCaches();
+
+    assertWithinBudget("POST /oauth/token (password grant)", 2, () ->
+        mockMvc.perform(passwordGrant()).andExpect(status().isOk()));
+  }
+
+  @Test
+  public void getProductExecutesOneStatement() throws Exception {
+    assertWithinBudget("GET /products/{id}", 1, () ->
+        mockMvc.perform(get("/products/1").header(HttpHeaders.AUTHORIZATION, bearer(accessToken)))
+            .andExpect(status().isOk()));
+  }
+
+  @Test
+  public void getProductsPageExecutesOneStatement() throws Exception {
+    assertWithinBudget("GET /products?limit=", 1, () ->
+        mockMvc.perform(get("/products").param("limit", "2").header(HttpHeaders.AUTHORIZATION, bearer(accessToken)))
+            .andExpect(status().isOk()));
+  }
+
+  @Test
+  public void createProductExecutesOneStatement() throws Exception {
+    assertWithinBudget("POST /products", 1, () ->
+        mockMvc.perform(post("/products")
+            .header(HttpHeaders.AUTHORIZATION, bearer(accessToken))
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(productJson("Budget waffle", "2.50")))
+            .andExpect(status().isCreated()));
+  }
+
+  @Test
+  public void createProductsInBatchExecutesOneStatementPerJdbcBatch() throws Exception {
+    List<Map<String, Object>> products = new ArrayList<>();
+
+    for (int i = 0; i < 120; i++) {
+      products.add(product("Budget batch product #" + i, "1.00"));
+    }
+
+    // One query checking the names, 120 inserts sent in 3 JDBC batches (hibernate.jdbc.batch_size); identifier blocks
+    // are allocated apart
+    RequestStatistics statistics = assertWithinBudget("POST /products/batch", 4, () ->
+        mockMvc.perform(post("/products/batch")
+            .header(HttpHeaders.AUTHORIZATION, bearer(accessToken))
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(products)))
+            .andExpect(status().isOk()));
+
+    assertTrue("Identifier blocks must have been allocated", statistics.getIsolatedStatementCount() > 0);
+  }
+
+  @Test
+  public void updateProductExecutesAtMostTwoStatements() throws Exception {
+    long id = createProduct("Budget pancake", "3.10");
+
+    assertWithinBudget("PUT /products/{id}", 2, () ->
+        mockMvc.perform(put("/products/" + id)
+            .header(HttpHeaders.AUTHORIZATION, bearer(accessToken))
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(productJson("Budget pancake (large)", "4.20")))
+            .andExpect(status().isOk()));
+  }
+
+  @Test
+  public void deleteProductExecutesAtMostTwoStatements() throws Exception {
+    long id = createProduct("Budget crepe", "2.80");
+
+    assertWithinBudget("DELETE /products/{id}", 2, () ->
+        mockMvc.perform(delete("/products/" + id).header(HttpHeaders.AUTHORIZATION, bearer(accessToken)))
+            .andExpect(status().isNoContent()));
+  }
+
+  private long createProduct(String name, String price) throws Exception {
+    MvcResult result = mockMvc.perform(post("/products")
+        .header(HttpHeaders.AUTHORIZATION, bearer(accessToken))
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(productJson(name, price)))
+        .andExpect(status().isCreated())
+        .andReturn();
+
+    return objectMapper.readTree(result.getResponse().getContentAsString()).get("id").asLong();
+  }
+
+  private String productJson(String name, String price) throws Exception {
+    return objectMapper.writeValueAsString(product(name, price));
+  }
+
+  private static Map<String, Object> product(String name, String price) {
+    Map<String, Object> product = new LinkedHashMap<>();
+    product.put("name", name);
+    product.put("price", price);
+    product.put("description", "Product created by statement budget tests");
+
+    return product;
+  }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2017 The Store API Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package be.bulck.example.store.api.compression;
+
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.StreamUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * The tests of compressed response wrapper (compressed content, small responses sent as is).
+ *
+ * @author Fabien Vanden Bulck
+ */
+public class CompressedResponseWrapperTest {
+  /** The minimum size of responses to compress. */
+  private static final int MIN_SIZE = 2048;
+
+  @Test
+  public void largeResponseIsCompressedWithGzip() throws Exception {
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    String content = write(response, CompressionFilter.GZIP, 100000);
+
+    assertEquals(CompressionFilter.GZIP, response.getHeader("Content-Encoding"));
+    assertEquals(content, read(new GZIPInputStream(new ByteArrayInputStream(response.getContentAsByteArray()))));
+  }
+
+  @Test
+  public void largeResponseIsCompressedWithDeflate() throws Exception {
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    String content = write(response, CompressionFilter.DEFLATE, 100000);
+
+    assertEquals(CompressionFilter.DEFLATE, response.getHeader("Content-Encoding"));
+    assertEquals(content, read(new InflaterInputStream(new ByteArrayInputStream(response.getContentAsByteArray()))));
+  }
+
+  @Test
+  public void smallResponseIsNotCompressed() throws Exception {
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    String content = write(response, CompressionFilter.GZIP, 100);
+
+    assertNull(response.getHeader("Content-Encoding"));
+    assertEquals(content, response.getContentAsString());
+  }
+
+  @Test
+  public void unfinishedResponseCanBeReleasedTwice() throws Exception {
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    CompressedResponseWrapper wrapper = wrap(response, CompressionFilter.GZIP);
+
+    wrapper.setContentType("application/json");
+    wrapper.getOutputStream().write(new byte[MIN_SIZE]);
+    wrapper.release();
+    wrapper.release();
+  }
+
+  // The fast level is used after the first 50000 bytes, as for large responses
+  private static String write(MockHttpServletResponse response, String encoding, int size) throws Exception {
+    StringBuilder content = new StringBuilder(size);
+
+    for (int i = 0; content.length() < size; i++) {
+      content.append("{\"id\":").append(i).append(",\"name\":\"Product #").append(i).append("\"},");
+    }
+
+    CompressedResponseWrapper wrapper = wrap(response, encoding);
+    wrapper.setContentType("application/json");
+    wrapper.getWriter().write(content.toString());
+    wrapper.finish();
+    wrapper.release();
+
+    return content.toString();
+  }
+
+  private static CompressedResponseWrapper wrap(MockHttpServletResponse response, String encoding) {
+    return new CompressedResponseWrapper(response, encoding, Collections.singleton("application/json"), MIN_SIZE, 6,
+        1, 50000);
+  }
+
+  private static String read(InputStream inputStream) throws Exception {
+    try (InputStream in = inputStream) {
+      return StreamUtils.copyToString(in, StandardCharsets.UTF_8);
+    }
+  }
+}
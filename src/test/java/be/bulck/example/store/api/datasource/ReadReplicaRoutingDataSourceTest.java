@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2017 The Store API Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package be.bulck.example.store.api.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * The tests of read replica routing: the datasources of {@link DataSourceConfiguration} are built against two embedded
+ * databases (a primary and a replica), each one telling its role, and transactions tell which database they used.
+ *
+ * @author Fabien Vanden Bulck
+ */
+public class ReadReplicaRoutingDataSourceTest {
+  private HikariDataSource primaryDataSource;
+
+  private ReadReplicaRoutingDataSource routingDataSource;
+
+  private JdbcTemplate jdbcTemplate;
+
+  private TransactionTemplate transactionTemplate;
+
+  @Before
+  public void setUp() {
+    primaryDataSource = new HikariDataSource();
+    primaryDataSource.setPoolName("routing-test");
+    primaryDataSource.setJdbcUrl(embeddedDatabaseUrl("routing-primary"));
+    primaryDataSource.setUsername("sa");
+    primaryDataSource.setMaximumPoolSize(2);
+
+    DataSourceReplica replica = new DataSourceReplica();
+    replica.setUrl(embeddedDatabaseUrl("routing-replica"));
+    replica.setUsername("sa");
+    replica.setPassword("");
+
+    createRoleTable(primaryDataSource.getJdbcUrl(), "primary");
+    createRoleTable(replica.getUrl(), "replica");
+
+    setUpRouting(replica);
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    routingDataSource.close();
+    primaryDataSource.close();
+  }
+
+  @Test
+  public void readOnlyTransactionUsesReplica() {
+    transactionTemplate.setReadOnly(true);
+
+    assertEquals("replica", transactionTemplate.execute(status -> currentRole()));
+  }
+
+  @Test
+  public void readWriteTransactionUsesPrimary() {
+    transactionTemplate.setReadOnly(false);
+
+    assertEquals("primary", transactionTemplate.execute(status -> currentRole()));
+  }
+
+  @Test
+  public void statementOutsideOfTransactionUsesPrimary() {
+    assertEquals("primary", currentRole());
+  }
+
+  @Test
+  public void readOnlyTransactionUsesPrimaryWhenReplicaIsUnavailable() throws IOException {
+    routingDataSource.close();
+
+    // The database does not exist and can not be created: the replica fails to provide connections
+    DataSourceReplica replica = new DataSourceReplica();
+    replica.setUrl("jdbc:h2:mem:routing-unavailable;IFEXISTS=TRUE");
+    replica.setUsername("sa");
+    replica.setPassword("");
+    setUpRouting(replica);
+    transactionTemplate.setReadOnly(true);
+
+    assertEquals("primary", transactionTemplate.execute(status -> currentRole()));
+  }
+
+  private void setUpRouting(DataSourceReplica replica) {
+    DataSourceConfiguration configuration = new DataSourceConfiguration();
+    configuration.setReplicas(Collections.singletonList(replica));
+
+    // The datasources are built as in application: statistics and lazy connections over the routing datasource
+    routingDataSource = configuration.routingDataSource(primaryDataSource);
+    DataSource dataSource = configuration.dataSource(routingDataSource);
+
+    jdbcTemplate = new JdbcTemplate(dataSource);
+    transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+  }
+
+  private String currentRole() {
+    return jdbcTemplate.queryForObject("SELECT role FROM database_role", String.class);
+  }
+
+  private static String embeddedDatabaseUrl(String name) {
+    return "jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1";
+  }
+
+  private static void createRoleTable(String url, String role) {
+    HikariDataSource dataSource = new HikariDataSource();
+    dataSource.setJdbcUrl(url);
+    dataSource.setUsername("sa");
+
+    try {
+      JdbcTemplate template = new JdbcTemplate(dataSource);
+      template.execute("CREATE TABLE IF NOT EXISTS database_role (role VARCHAR(16))");
+      template.update("DELETE FROM database_role");
+      template.update("INSERT INTO database_role (role) VALUES (?)", role);
+    } finally {
+      dataSource.close();
+    }
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2017 The Store API Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package be.bulck.example.store.api.datasource;
+
+/**
+ * The statement budget assertions of tests: an operation (a service call, an HTTP request through MockMvc...) runs on
+ * the current thread while its {@link RequestStatistics} are collected, and fails if it executes more SQL statements
+ * than its budget.
+ *
+ * The statements of isolated work (allocation of identifier blocks, once every block) are not charged to the budget.
+ *
+ * @author Fabien Vanden Bulck
+ */
+public final class StatementBudget {
+  private StatementBudget() {}
+
+  /**
+   * Runs an operation and asserts that it executes at most a number of SQL statements.
+   *
+   * @param operationName the name of operation (for the failure message)
+   * @param maxStatements the maximum number of SQL statements
+   * @param operation the operation
+   *
+   * @return the statistics of operation
+   *
+   * @throws Exception if the operation fails
+   */
+  public static RequestStatistics assertWithinBudget(String operationName, int maxStatements, Operation operation)
+      throws Exception {
+    RequestStatistics statistics = RequestStatistics.begin();
+
+    try {
+      operation.run();
+    } finally {
+      RequestStatistics.end();
+    }
+
+    int statementCount = statistics.getStatementCount() - statistics.getIsolatedStatementCount();
+
+    if (statementCount > maxStatements) {
+      throw new AssertionError(operationName + " has executed " + statementCount + " SQL statements, its budget is " +
+          maxStatements + " (" + statistics + ")");
+    }
+
+    return statistics;
+  }
+
+  /**
+   * The operation measured.
+   */
+  @FunctionalInterface
+  public interface Operation {
+    void run() throws Exception;
+  }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2017 The Store API Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package be.bulck.example.store.api.resource;
+
+import be.bulck.example.store.api.AbstractIntegrationTest;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The tests of metrics resource (access from the networks allowed, labels of endpoint metrics).
+ *
+ * @author Fabien Vanden Bulck
+ */
+public class MetricsResourceTest extends AbstractIntegrationTest {
+  /** An address outside of the networks allowed to scrape metrics. */
+  private static final String PUBLIC_ADDRESS = "203.0.113.10";
+
+  @Test
+  public void metricsAreScrapedFromAllowedNetworkWithoutToken() throws Exception {
+    mockMvc.perform(get("/metrics"))
+        .andExpect(status().isOk())
+        .andExpect(content().string(containsString("# TYPE http_server_requests_seconds summary")));
+  }
+
+  @Test
+  public void metricsNeedTokenOutsideOfAllowedNetworks() throws Exception {
+    mockMvc.perform(get("/metrics").with(remoteAddress(PUBLIC_ADDRESS)))
+        .andExpect(status().isUnauthorized());
+  }
+
+  @Test
+  public void metricsAreNotReadByUsers() throws Exception {
+    mockMvc.perform(get("/metrics")
+        .with(remoteAddress(PUBLIC_ADDRESS))
+        .header(HttpHeaders.AUTHORIZATION, bearer(obtainAccessToken())))
+        .andExpect(status().isForbidden());
+  }
+
+  @Test
+  public void nonStandardMethodsAreRecordedAsOther() throws Exception {
+    mockMvc.perform(get("/products").with(request -> {
+      request.setMethod("PROPFIND-42");
+      return request;
+    }));
+
+    mockMvc.perform(get("/metrics"))
+        .andExpect(status().isOk())
+        .andExpect(content().string(containsString("method=\"OTHER\"")))
+        .andExpect(content().string(not(containsString("PROPFIND-42"))));
+  }
+
+  private static RequestPostProcessor remoteAddress(String address) {
+    return request -> {
+      request.setRemoteAddr(address);
+      return request;
+    };
+  }
+}
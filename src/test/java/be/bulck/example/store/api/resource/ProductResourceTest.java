@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) 2017 The Store API Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package be.bulck.example.store.api.resource;
+
+import be.bulck.example.store.api.AbstractIntegrationTest;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import static be.bulck.example.store.api.datasource.StatementBudget.assertWithinBudget;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The tests of product resource (conditional reads, pagination limits, batches).
+ *
+ * @author Fabien Vanden Bulck
+ */
+public class ProductResourceTest extends AbstractIntegrationTest {
+  private String accessToken;
+
+  @Before
+  public void setUp() throws Exception {
+    accessToken = obtainAccessToken();
+  }
+
+  @Test
+  public void unchangedPageIsNotModifiedWithoutAggregatingCatalogue() throws Exception {
+    String eTag = eTag(get("/products").param("limit", "2"));
+
+    // The page itself is the only statement: the catalogue is not aggregated for a page
+    assertWithinBudget("GET /products?limit= (not modified)", 1, () ->
+        mockMvc.perform(authorized(get("/products").param("limit", "2")).header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isNotModified()));
+  }
+
+  @Test
+  public void unchangedCatalogueIsNotModified() throws Exception {
+    String eTag = eTag(get("/products"));
+
+    mockMvc.perform(authorized(get("/products")).header(HttpHeaders.IF_NONE_MATCH, eTag))
+        .andExpect(status().isNotModified());
+  }
+
+  @Test
+  public void eTagDependsOnQuery() throws Exception {
+    assertNotEquals(eTag(get("/products").param("limit", "2")), eTag(get("/products").param("limit", "3")));
+    assertNotEquals(eTag(get("/products").param("page", "0")), eTag(get("/products").param("size", "20")));
+  }
+
+  @Test
+  public void eTagDependsOnMediaType() throws Exception {
+    String jsonETag = eTag(get("/products/1").accept(MediaType.APPLICATION_JSON));
+    String xmlETag = eTag(get("/products/1").accept(MediaType.APPLICATION_XML));
+
+    assertNotEquals(jsonETag, xmlETag);
+
+    mockMvc.perform(authorized(get("/products/1").accept(MediaType.APPLICATION_XML))
+        .header(HttpHeaders.IF_NONE_MATCH, jsonETag))
+        .andExpect(status().isOk())
+        .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT));
+  }
+
+  @Test
+  public void updatedProductChangesPageETag() throws Exception {
+    String eTag = eTag(get("/products").param("limit", "3"));
+
+    mockMvc.perform(authorized(put("/products/2"))
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("{\"name\":\"Updated by conditional read tests\",\"price\":\"9.99\",\"description\":\"Updated\"}"))
+        .andExpect(status().isOk());
+
+    mockMvc.perform(authorized(get("/products").param("limit", "3")).header(HttpHeaders.IF_NONE_MATCH, eTag))
+        .andExpect(status().isOk());
+  }
+
+  @Test
+  public void deepNumberedPageIsRejected() throws Exception {
+    mockMvc.perform(authorized(get("/products").param("page", "30000000").param("size", "100")))
+        .andExpect(status().isBadRequest());
+    mockMvc.perform(authorized(get("/products").param("page", "101").param("size", "100")))
+        .andExpect(status().isBadRequest());
+    mockMvc.perform(authorized(get("/products").param("page", "100").param("size", "100")))
+        .andExpect(status().isOk());
+  }
+
+  @Test
+  public void nullProductOfBatchIsRejectedAlone() throws Exception {
+    mockMvc.perform(authorized(post("/products/batch"))
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("[{\"name\":\"Batch product next to null\",\"price\":\"1.00\",\"description\":\"Valid\"},null]"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$[0].status").value(201))
+        .andExpect(jsonPath("$[1].index").value(1))
+        .andExpect(jsonPath("$[1].status").value(400));
+
+    mockMvc.perform(authorized(put("/products/batch"))
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("[null]"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$[0].status").value(400));
+  }
+
+  private String eTag(MockHttpServletRequestBuilder request) throws Exception {
+    String eTag = mockMvc.perform(authorized(request))
+        .andExpect(status().isOk())
+        .andReturn()
+        .getResponse()
+        .getHeader(HttpHeaders.ETAG);
+
+    assertNotNull("An ETag must be sent", eTag);
+    assertEquals('"', eTag.charAt(0));
+
+    return eTag;
+  }
+
+  private MockHttpServletRequestBuilder authorized(MockHttpServletRequestBuilder request) {
+    return request.header(HttpHeaders.AUTHORIZATION, bearer(accessToken));
+  }
+}
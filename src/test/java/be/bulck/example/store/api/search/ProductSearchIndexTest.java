@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2017 The Store API Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package be.bulck.example.store.api.search;
+
+import be.bulck.example.store.api.domain.Product;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The tests of product search index (matching, prefix expansions, updates, deletions while the index is loaded).
+ *
+ * @author Fabien Vanden Bulck
+ */
+public class ProductSearchIndexTest {
+  private final ProductSearchIndex productSearchIndex = new ProductSearchIndex();
+
+  @Test
+  public void productsMatchAllTermsOfQuery() {
+    productSearchIndex.index(product(1L, 0L, "Maple syrup", "Canadian syrup"));
+    productSearchIndex.index(product(2L, 0L, "Maple leaf", "Decoration"));
+    productSearchIndex.index(product(3L, 0L, "Golden syrup", "Cane sugar"));
+
+    assertEquals(Collections.singletonList(1L), productSearchIndex.search("maple syr", 10));
+    assertEquals(Arrays.asList(1L, 2L), productSearchIndex.search("maple", 10));
+  }
+
+  @Test
+  public void productsOutOfOrderAreSearchable() {
+    productSearchIndex.index(product(5L, 0L, "Waffle", null));
+    productSearchIndex.index(product(2L, 0L, "Waffle", null));
+    productSearchIndex.index(product(9L, 0L, "Waffle", null));
+    productSearchIndex.index(product(7L, 0L, "Waffle", null));
+
+    assertEquals(Arrays.asList(2L, 5L, 7L, 9L), productSearchIndex.search("waffle", 10));
+  }
+
+  @Test
+  public void updatedProductIsSearchedByItsNewTerms() {
+    productSearchIndex.index(product(1L, 0L, "Pancake", null));
+    productSearchIndex.index(product(2L, 0L, "Pancake", null));
+    productSearchIndex.index(product(1L, 1L, "Crepe", null));
+    productSearchIndex.index(product(1L, 0L, "Pancake", null));
+
+    assertEquals(Collections.singletonList(2L), productSearchIndex.search("pancake", 10));
+    assertEquals(Collections.singletonList(1L), productSearchIndex.search("crepe", 10));
+  }
+
+  @Test
+  public void removedProductIsNotSearched() {
+    productSearchIndex.index(product(1L, 0L, "Pancake", null));
+    productSearchIndex.index(product(2L, 0L, "Pancake", null));
+    productSearchIndex.remove(1L);
+
+    assertEquals(Collections.singletonList(2L), productSearchIndex.search("pancake", 10));
+    assertEquals(1, productSearchIndex.size());
+  }
+
+  @Test
+  public void productDeletedWhileLoadingIsNotIndexed() {
+    productSearchIndex.startLoading();
+    productSearchIndex.load(product(1L, 0L, "Pancake", null));
+    productSearchIndex.remove(2L);
+    productSearchIndex.load(product(2L, 0L, "Pancake", null));
+    productSearchIndex.load(product(3L, 0L, "Pancake", null));
+    productSearchIndex.finishLoading();
+
+    assertEquals(Arrays.asList(1L, 3L), productSearchIndex.search("pancake", 10));
+  }
+
+  @Test
+  public void productsClearedWhileLoadingAreNotIndexed() {
+    productSearchIndex.startLoading();
+    productSearchIndex.load(product(1L, 0L, "Pancake", null));
+    productSearchIndex.clear();
+    productSearchIndex.load(product(2L, 0L, "Pancake", null));
+    productSearchIndex.index(product(4L, 0L, "Pancake", null));
+    productSearchIndex.finishLoading();
+
+    assertEquals(Collections.singletonList(4L), productSearchIndex.search("pancake", 10));
+  }
+
+  @Test
+  public void productSavedWhileLoadingKeepsItsLatestVersion() {
+    productSearchIndex.startLoading();
+    productSearchIndex.index(product(1L, 1L, "Crepe", null));
+    productSearchIndex.load(product(1L, 0L, "Pancake", null));
+    productSearchIndex.finishLoading();
+
+    assertEquals(Collections.emptyList(), productSearchIndex.search("pancake", 10));
+    assertEquals(Collections.singletonList(1L), productSearchIndex.search("crepe", 10));
+  }
+
+  @Test
+  public void shortPrefixMatchesTheMostFrequentTerms() {
+    for (long id = 1; id <= 100; id++) {
+      productSearchIndex.index(product(id, 0L, "Sugar" + (char) ('a' + id / 26) + (char) ('a' + id % 26), null));
+    }
+
+    for (long id = 101; id <= 103; id++) {
+      productSearchIndex.index(product(id, 0L, "Sugarzz", null));
+    }
+
+    List<Long> results = productSearchIndex.search("sugar", 200);
+
+    assertTrue(results.containsAll(Arrays.asList(101L, 102L, 103L)));
+    assertEquals(66, results.size());
+  }
+
+  private static Product product(Long id, Long version, String name, String description) {
+    Product product = new Product();
+    product.setId(id);
+    product.setVersion(version);
+    product.setName(name);
+    product.setDescription(description);
+
+    return product;
+  }
+}
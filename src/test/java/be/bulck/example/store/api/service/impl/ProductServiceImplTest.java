@@ -0,0 +1,245 @@
+/*
+ * Copyright (C) 2017 The Store API Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package be.bulck.example.store.api.service.impl;
+
+import be.bulck.example.store.api.AbstractIntegrationTest;
+import be.bulck.example.store.api.domain.Product;
+import be.bulck.example.store.api.exception.ResourceConflictException;
+import be.bulck.example.store.api.repository.ProductRepository;
+import be.bulck.example.store.api.service.BatchResult;
+import be.bulck.example.store.api.service.ProductService;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static be.bulck.example.store.api.cache.CacheConfiguration.PRODUCTS_BY_NAME_CACHE;
+import static be.bulck.example.store.api.cache.CacheConfiguration.PRODUCTS_CACHE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The tests of product service: caches of products rolled back, and concurrent writes (the unique constraint on product
+ * names is the only arbiter between concurrent creations and renames, its violations must be reported as conflicts).
+ *
+ * @author Fabien Vanden Bulck
+ */
+public class ProductServiceImplTest extends AbstractIntegrationTest {
+  /** The number of concurrent writers. */
+  private static final int WRITER_COUNT = 8;
+
+  /** The number of rounds of each test. */
+  private static final int ROUND_COUNT = 10;
+
+  /** The sequence making names unique between tests and rounds. */
+  private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+  @Autowired
+  private ProductService productService;
+
+  @Autowired
+  private ProductRepository productRepository;
+
+  @Autowired
+  private CacheManager cacheManager;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  @Test
+  public void productCreatedInRolledBackTransactionIsNotCached() {
+    String name = uniqueName("Rolled back creation");
+
+    Long id = new TransactionTemplate(transactionManager).execute(status -> {
+      Product product = productService.create(product(name));
+      status.setRollbackOnly();
+
+      return product.getId();
+    });
+
+    assertNull(cacheManager.getCache(PRODUCTS_CACHE).get(id));
+    assertNull(cacheManager.getCache(PRODUCTS_BY_NAME_CACHE).get(name));
+    assertNull(productRepository.findOne(id));
+  }
+
+  @Test
+  public void productUpdatedInRolledBackTransactionIsNotCached() {
+    Long id = productService.create(product(uniqueName("Product to update"))).getId();
+    String previousName = productService.find(id).getName();
+
+    new TransactionTemplate(transactionManager).execute(status -> {
+      Product product = product(uniqueName("Rolled back update"));
+      product.setId(id);
+      productService.update(product);
+      status.setRollbackOnly();
+
+      return null;
+    });
+
+    assertEquals(previousName, productService.find(id).getName());
+  }
+
+  @Test
+  public void concurrentCreationsOfSameNameConflict() throws Exception {
+    for (int round = 0; round < ROUND_COUNT; round++) {
+      String name = uniqueName("Concurrent creation");
+
+      assertOneSucceeds(() -> productService.create(product(name)) != null);
+    }
+  }
+
+  @Test
+  public void concurrentBatchCreationsOfSameNameConflict() throws Exception {
+    for (int round = 0; round < ROUND_COUNT; round++) {
+      String name = uniqueName("Concurrent batch creation");
+
+      assertOneSucceeds(() -> isWritten(productService.createAll(Collections.singletonList(product(name)))));
+    }
+  }
+
+  @Test
+  public void concurrentRenamesToSameNameConflict() throws Exception {
+    for (int round = 0; round < ROUND_COUNT; round++) {
+      String name = uniqueName("Concurrent rename");
+      List<Long> ids = createProducts(WRITER_COUNT);
+
+      assertOneSucceeds(index -> {
+        Product product = product(name);
+        product.setId(ids.get(index));
+
+        return productService.update(product) != null;
+      });
+    }
+  }
+
+  @Test
+  public void concurrentBatchRenamesToSameNameConflict() throws Exception {
+    for (int round = 0; round < ROUND_COUNT; round++) {
+      String name = uniqueName("Concurrent batch rename");
+      List<Long> ids = createProducts(WRITER_COUNT);
+
+      assertOneSucceeds(index -> {
+        Product product = product(name);
+        product.setId(ids.get(index));
+
+        return isWritten(productService.updateAll(Collections.singletonList(product)));
+      });
+    }
+  }
+
+  private void assertOneSucceeds(Callable<Boolean> write) throws Exception {
+    assertOneSucceeds(index -> write.call());
+  }
+
+  // Writers are released together, exactly one of them must succeed and all the others must conflict (either detected
+  // before writing and reported in the result of batch, or detected by the database and thrown)
+  private void assertOneSucceeds(IndexedWrite write) throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(WRITER_COUNT);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<Boolean>> futures = new ArrayList<>(WRITER_COUNT);
+
+    try {
+      for (int i = 0; i < WRITER_COUNT; i++) {
+        int index = i;
+        futures.add(executor.submit(() -> {
+          start.await();
+
+          return write.call(index);
+        }));
+      }
+
+      start.countDown();
+
+      int successCount = 0;
+      int conflictCount = 0;
+
+      for (Future<Boolean> future : futures) {
+        try {
+          if (future.get(30, TimeUnit.SECONDS)) {
+            successCount++;
+          } else {
+            conflictCount++;
+          }
+        } catch (ExecutionException exception) {
+          assertTrue("Concurrent writes must conflict, not fail with " + exception.getCause(),
+              exception.getCause() instanceof ResourceConflictException);
+          conflictCount++;
+        }
+      }
+
+      assertEquals(1, successCount);
+      assertEquals(WRITER_COUNT - 1, conflictCount);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static boolean isWritten(List<BatchResult<Product>> results) {
+    BatchResult<Product> result = results.get(0);
+
+    if (!result.isSuccess()) {
+      assertEquals(HttpStatus.CONFLICT, result.getStatus());
+    }
+
+    return result.isSuccess();
+  }
+
+  private List<Long> createProducts(int count) {
+    List<Long> ids = new ArrayList<>(count);
+
+    for (int i = 0; i < count; i++) {
+      ids.add(productService.create(product(uniqueName("Product to rename"))).getId());
+    }
+
+    return ids;
+  }
+
+  private static String uniqueName(String prefix) {
+    return prefix + " #" + SEQUENCE.incrementAndGet();
+  }
+
+  private static Product product(String name) {
+    Product product = new Product();
+    product.setName(name);
+    product.setPrice(new BigDecimal("1.00"));
+    product.setDescription("Product created by concurrency tests");
+
+    return product;
+  }
+
+  @FunctionalInterface
+  private interface IndexedWrite {
+    boolean call(int index) throws Exception;
+  }
+}
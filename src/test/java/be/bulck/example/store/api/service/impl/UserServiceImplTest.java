@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2017 The Store API Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package be.bulck.example.store.api.service.impl;
+
+import be.bulck.example.store.api.AbstractIntegrationTest;
+import be.bulck.example.store.api.datasource.RequestStatistics;
+import be.bulck.example.store.api.domain.security.User;
+import be.bulck.example.store.api.repository.UserRepository;
+import be.bulck.example.store.api.service.UserService;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static be.bulck.example.store.api.datasource.StatementBudget.assertWithinBudget;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The tests of user service (loading of users with their authorities, cache of users).
+ *
+ * @author Fabien Vanden Bulck
+ */
+public class UserServiceImplTest extends AbstractIntegrationTest {
+  @Autowired
+  private UserService userService;
+
+  @Autowired
+  private UserRepository userRepository;
+
+  @Test
+  public void loadingUserFetchesRolesAndPermissionsInOneStatement() throws Exception {
+    RequestStatistics statistics = assertWithinBudget("UserService.loadUserByUsername", 1, () -> {
+      // Authorities are read outside of the transaction: the whole graph must have been fetched
+      UserDetails user = userService.loadUserByUsername(USERNAME);
+      Set<String> authorities = user.getAuthorities().stream()
+          .map(GrantedAuthority::getAuthority)
+          .collect(Collectors.toSet());
+
+      assertTrue(authorities.contains("ROLE_USER"));
+      assertTrue(authorities.contains("PERM_READ_PRODUCT"));
+      assertTrue(authorities.contains("PERM_WRITE_PRODUCT"));
+    });
+
+    assertEquals(1, statistics.getStatementCount());
+  }
+
+  @Test
+  public void loadingCachedUserExecutesNoStatement() throws Exception {
+    userService.loadUserByUsername(USERNAME);
+
+    RequestStatistics statistics = assertWithinBudget("UserService.findByUsername (cached)", 0, () ->
+        userService.findByUsername(USERNAME));
+
+    assertEquals(0, statistics.getConnectionCount());
+  }
+
+  @Test
+  public void savingRenamedUserEvictsPreviousUsername() {
+    assertNotNull(userService.findByUsername(USERNAME));
+
+    User user = userRepository.findOneByUsername(USERNAME);
+    user.setUsername(USERNAME + "-renamed");
+    userService.save(user);
+
+    try {
+      assertNull(userService.findByUsername(USERNAME));
+      assertEquals(user.getId(), userService.findByUsername(USERNAME + "-renamed").getId());
+    } finally {
+      user.setUsername(USERNAME);
+      userService.save(user);
+    }
+
+    assertNotNull(userService.findByUsername(USERNAME));
+  }
+}